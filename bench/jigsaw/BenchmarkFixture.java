@@ -0,0 +1,99 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+import jigsaw.data.TokenGroup;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark fixture: JIGSAW and the tagged text used as input. The text is
+ * read from the file given by the system property jigsaw.fixture (one token
+ * per line in the format word.postag) and it is split in chunks of chunkSize
+ * tokens. The configuration file is given by the system property
+ * jigsaw.config. Paths are relative to the bin directory, as for jigsaw.sh.
+ *
+ * @author Basile Pierpaolo
+ */
+@State(Scope.Benchmark)
+public class BenchmarkFixture {
+
+    /**
+     * Number of tokens in each chunk of the text
+     */
+    @Param({"100"})
+    public int chunkSize;
+    /**
+     * Size of the synset pair and gloss caches, 0 measures the uncached path
+     */
+    @Param({"0"})
+    public int cacheSize;
+    JIGSAW jigsaw;
+    List<TokenGroup> chunks;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        jigsaw = new JIGSAW(new File(System.getProperty("jigsaw.config", "../resources/jigsaw.properties")));
+        jigsaw.getWordNet().setCacheSize(cacheSize);
+        jigsaw.setGlossCacheSize(cacheSize);
+        List<String> list = new ArrayList<String>();
+        List<String> tags = new ArrayList<String>();
+        BufferedReader in = new BufferedReader(new FileReader(System.getProperty("jigsaw.fixture", "../test/senseval3_wn3.tagged")));
+        String line;
+        while ((line = in.readLine()) != null) {
+            int index = line.lastIndexOf(".");
+            if (index > 0) {
+                list.add(line.substring(0, index));
+                tags.add(line.substring(index + 1, line.length()));
+            }
+        }
+        in.close();
+        chunks = new ArrayList<TokenGroup>();
+        for (int i = 0; i < list.size(); i += chunkSize) {
+            int end = Math.min(i + chunkSize, list.size());
+            chunks.add(jigsaw.getTokens(list.subList(i, end).toArray(new String[end - i]), tags.subList(i, end).toArray(new String[end - i])));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jigsaw.data.TermBag;
+import jigsaw.data.TermScope;
+import jigsaw.data.Token;
+import jigsaw.data.TokenGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the JIGSAW similarity kernels and of the disambiguation
+ * phases for nouns, verbs and adjectives/adverbs. Each invocation works on the
+ * next input of the fixture.
+ *
+ * @author Basile Pierpaolo
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JigsawBenchmark {
+
+    private JIGSAW jigsaw;
+    private Token[][] nounPairs;
+    private TokenGroup[] nounGroups;
+    private Token[] verbs;
+    private TokenGroup[] verbContexts;
+    private Token[] adjAdvs;
+    private TokenGroup[] adjAdvContexts;
+    private int[][] signatures;
+    private TermBag[] signatureContexts;
+    private TermScope[] signatureScopes;
+    private int[] signatureStems;
+    private int nextPair = 0;
+    private int nextGroup = 0;
+    private int nextVerb = 0;
+    private int nextAdjAdv = 0;
+    private int nextSignature = 0;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkFixture fixture) throws Exception {
+        jigsaw = fixture.jigsaw;
+        List<Token[]> pairList = new ArrayList<Token[]>();
+        List<TokenGroup> groupList = new ArrayList<TokenGroup>();
+        List<Token> verbList = new ArrayList<Token>();
+        List<TokenGroup> verbContextList = new ArrayList<TokenGroup>();
+        List<Token> adjAdvList = new ArrayList<Token>();
+        List<TokenGroup> adjAdvContextList = new ArrayList<TokenGroup>();
+        List<int[]> signatureList = new ArrayList<int[]>();
+        List<TermBag> signatureContextList = new ArrayList<TermBag>();
+        List<TermScope> signatureScopeList = new ArrayList<TermScope>();
+        List<Integer> signatureStemList = new ArrayList<Integer>();
+        for (TokenGroup tg : fixture.chunks) {
+            TokenGroup nouns = jigsaw.getNouns(tg);
+            if (nouns.size() > 0) {
+                groupList.add(nouns);
+            }
+            for (int i = 1; i < nouns.size(); i++) {
+                if (hasSyns(nouns.get(i - 1)) && hasSyns(nouns.get(i))) {
+                    pairList.add(new Token[]{nouns.get(i - 1), nouns.get(i)});
+                }
+            }
+            for (int i = 0; i < tg.size(); i++) {
+                Token t = tg.get(i);
+                if (!hasSyns(t)) {
+                    continue;
+                }
+                if (t.getPosTag().equals("v")) {
+                    verbList.add(t);
+                    verbContextList.add(jigsaw.getContext(tg, i, false));
+                } else if (t.getPosTag().equals("a") || t.getPosTag().equals("r")) {
+                    TokenGroup context = jigsaw.getContext(tg, i, false);
+                    adjAdvList.add(t);
+                    adjAdvContextList.add(context);
+                    TermScope terms = jigsaw.newTermScope();
+                    TermBag contextBag = new TermBag(terms.getIds(jigsaw.generateContextGloss(context), true));
+                    int tokenStem = t.getStem() == null ? -1 : terms.getId(t.getStem());
+                    for (int j = 0; j < t.getSyns().length; j++) {
+                        signatureList.add(terms.getDistinctStemIds(jigsaw.generateTargetGloss(t, j)));
+                        signatureScopeList.add(terms);
+                        signatureContextList.add(contextBag);
+                        signatureStemList.add(tokenStem);
+                    }
+                }
+            }
+        }
+        nounPairs = pairList.toArray(new Token[pairList.size()][]);
+        nounGroups = groupList.toArray(new TokenGroup[groupList.size()]);
+        verbs = verbList.toArray(new Token[verbList.size()]);
+        verbContexts = verbContextList.toArray(new TokenGroup[verbContextList.size()]);
+        adjAdvs = adjAdvList.toArray(new Token[adjAdvList.size()]);
+        adjAdvContexts = adjAdvContextList.toArray(new TokenGroup[adjAdvContextList.size()]);
+        signatures = signatureList.toArray(new int[signatureList.size()][]);
+        signatureContexts = signatureContextList.toArray(new TermBag[signatureContextList.size()]);
+        signatureScopes = signatureScopeList.toArray(new TermScope[signatureScopeList.size()]);
+        signatureStems = new int[signatureStemList.size()];
+        for (int i = 0; i < signatureStems.length; i++) {
+            signatureStems[i] = signatureStemList.get(i);
+        }
+    }
+
+    private static boolean hasSyns(Token t) {
+        return t.getSyns() != null && t.getSyns().length > 0;
+    }
+
+    @Benchmark
+    public double sim() {
+        Token[] pair = nounPairs[nextPair];
+        nextPair = (nextPair + 1) % nounPairs.length;
+        return jigsaw.sim(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public double compareSimWeight() {
+        int k = nextSignature;
+        nextSignature = (nextSignature + 1) % signatures.length;
+        return jigsaw.compareSimWeight(signatures[k], signatureContexts[k], signatureStems[k], signatureScopes[k]);
+    }
+
+    @Benchmark
+    public TokenGroup setSynNouns() throws Exception {
+        TokenGroup nouns = nounGroups[nextGroup];
+        nextGroup = (nextGroup + 1) % nounGroups.length;
+        jigsaw.setSynNouns(nouns);
+        return nouns;
+    }
+
+    @Benchmark
+    public String setSynVerb() throws Exception {
+        int k = nextVerb;
+        nextVerb = (nextVerb + 1) % verbs.length;
+        jigsaw.setSynVerb(verbs[k], verbContexts[k]);
+        return verbs[k].getSyn();
+    }
+
+    @Benchmark
+    public String setSynAdjAdv() throws Exception {
+        int k = nextAdjAdv;
+        nextAdjAdv = (nextAdjAdv + 1) % adjAdvs.length;
+        jigsaw.setSynAdjAdv(adjAdvs[k], adjAdvContexts[k]);
+        return adjAdvs[k].getSyn();
+    }
+}
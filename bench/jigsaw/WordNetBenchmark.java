@@ -0,0 +1,118 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jigsaw.data.Token;
+import jigsaw.data.TokenGroup;
+import jigsaw.wn.WordNet;
+import net.sf.extjwnl.data.PointerType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the WordNet distance and relation kernels. The synset pairs
+ * are the first senses of the consecutive nouns of the fixture.
+ *
+ * @author Basile Pierpaolo
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WordNetBenchmark {
+
+    private WordNet wordNet;
+    private int depth;
+    private int[][] pairs;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkFixture fixture) {
+        wordNet = fixture.jigsaw.getWordNet();
+        depth = fixture.jigsaw.getDepth();
+        List<int[]> list = new ArrayList<int[]>();
+        for (TokenGroup tg : fixture.chunks) {
+            TokenGroup nouns = fixture.jigsaw.getNouns(tg);
+            for (int i = 1; i < nouns.size(); i++) {
+                Token t1 = nouns.get(i - 1);
+                Token t2 = nouns.get(i);
+                if (t1.getSyns() != null && t1.getSyns().length > 0 && t2.getSyns() != null && t2.getSyns().length > 0) {
+                    list.add(new int[]{t1.getSyns()[0], t2.getSyns()[0]});
+                }
+            }
+        }
+        pairs = list.toArray(new int[list.size()][]);
+    }
+
+    private int[] nextPair() {
+        int[] pair = pairs[next];
+        next = (next + 1) % pairs.length;
+        return pair;
+    }
+
+    @Benchmark
+    public int getDepthByOffset() {
+        int[] pair = nextPair();
+        return wordNet.getDepthByOffset(pair[0], pair[1], "n", PointerType.HYPERNYM, depth);
+    }
+
+    @Benchmark
+    public int[] getCommon() {
+        int[] pair = nextPair();
+        return wordNet.getCommon(pair[0], pair[1], "n", PointerType.HYPERNYM, depth);
+    }
+
+    @Benchmark
+    public boolean isHypernym() throws Exception {
+        int[] pair = nextPair();
+        return wordNet.isHypernym(pair[0], pair[1], "n");
+    }
+
+    @Benchmark
+    public String getRelationElement() {
+        int[] pair = nextPair();
+        return wordNet.getRelationElement(pair[0], "n", PointerType.HYPERNYM, depth, true);
+    }
+}
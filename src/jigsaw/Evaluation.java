@@ -0,0 +1,193 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jigsaw.data.Token;
+import jigsaw.data.TokenGroup;
+import jigsaw.utils.CommandUtils;
+import jigsaw.utils.PhaseTimer;
+
+/**
+ * Throughput and regression harness. It disambiguates a tagged corpus (one
+ * token per line in the format word.postag), reports tokens/sec and the wall
+ * time of each phase, and compares the output with a reference output in the
+ * JIGSAW format (token stem pos-tag lemma sense). The exit code is 1 if some
+ * sense assignment differs from the reference.
+ *
+ * @author Basile Pierpaolo
+ */
+public class Evaluation {
+
+    private static final int MAX_REPORTED_DIFFERENCES = 20;
+
+    public static void main(String[] args) {
+        try {
+            Properties props = null;
+            try {
+                props = CommandUtils.cmd(args);
+                if (!(props.containsKey("-i") && props.containsKey("-cf"))) {
+                    throw new Exception("-i <input file> and -cf <configuration file> are expected");
+                }
+            } catch (Exception ex) {
+                Logger.getLogger(Evaluation.class.getName()).log(Level.SEVERE, "Parameters are wrong", ex);
+                usage();
+                System.exit(1);
+            }
+            long time = System.nanoTime();
+            JIGSAW jigsaw = new JIGSAW(new File(props.getProperty("-cf")));
+            System.out.println("Init: " + (System.nanoTime() - time) / 1000000 + " ms");
+            List<String> list = new ArrayList<String>();
+            List<String> tags = new ArrayList<String>();
+            BufferedReader in = new BufferedReader(new FileReader(props.getProperty("-i")));
+            String line;
+            while ((line = in.readLine()) != null) {
+                int index = line.lastIndexOf(".");
+                if (index > 0) {
+                    list.add(line.substring(0, index));
+                    tags.add(line.substring(index + 1, line.length()));
+                }
+            }
+            in.close();
+            String[] tokens = list.toArray(new String[list.size()]);
+            String[] posTags = tags.toArray(new String[tags.size()]);
+            int runs = Integer.parseInt(props.getProperty("-n", "1"));
+            TokenGroup tg = null;
+            for (int run = 1; run <= runs; run++) {
+                PhaseTimer timer = new PhaseTimer();
+                jigsaw.setPhaseTimer(timer);
+                time = System.nanoTime();
+                tg = jigsaw.mapText(tokens, posTags);
+                time = System.nanoTime() - time;
+                System.out.println("Run " + run + ": " + tokens.length + " tokens in " + time / 1000000 + " ms, "
+                        + String.format("%.1f", tokens.length / (time / 1e9)) + " tokens/sec");
+                for (int i = 0; i < PhaseTimer.getPhaseCount(); i++) {
+                    System.out.println("\t" + PhaseTimer.getName(i) + ": " + timer.getTime(i) / 1000000 + " ms");
+                }
+            }
+            jigsaw.setPhaseTimer(null);
+            jigsaw.logCacheStatistics();
+            jigsaw.close();
+            List<String> output = new ArrayList<String>();
+            for (int i = 0; i < tg.size(); i++) {
+                Token t = tg.get(i);
+                output.add(t.getToken() + " " + t.getStem() + " " + t.getPosTag() + " " + t.getLemma() + " " + t.getSyn());
+            }
+            if (props.containsKey("-o")) {
+                BufferedWriter out = new BufferedWriter(new FileWriter(props.getProperty("-o")));
+                for (String o : output) {
+                    out.append(o);
+                    out.newLine();
+                }
+                out.close();
+            }
+            if (props.containsKey("-r")) {
+                int differences = compare(output, readReference(new File(props.getProperty("-r"))));
+                if (differences > 0) {
+                    System.exit(1);
+                }
+            }
+        } catch (Exception ex) {
+            Logger.getLogger(Evaluation.class.getName()).log(Level.SEVERE, null, ex);
+            System.exit(1);
+        }
+    }
+
+    private static List<String> readReference(File file) throws Exception {
+        List<String> reference = new ArrayList<String>();
+        BufferedReader in = new BufferedReader(new FileReader(file));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.trim().length() > 0) {
+                reference.add(line);
+            }
+        }
+        in.close();
+        return reference;
+    }
+
+    /**
+     * Compare the sense of each token with the reference, the tokens are
+     * aligned by position
+     *
+     * @return Number of tokens whose sense differs from the reference
+     */
+    private static int compare(List<String> output, List<String> reference) {
+        if (output.size() != reference.size()) {
+            System.out.println("Output has " + output.size() + " tokens, reference has " + reference.size() + " tokens");
+        }
+        int n = Math.min(output.size(), reference.size());
+        int differences = 0;
+        int tokenDifferences = 0;
+        for (int i = 0; i < n; i++) {
+            String[] o = output.get(i).split(" ");
+            String[] r = reference.get(i).split(" ");
+            if (!o[0].equals(r[0])) {
+                tokenDifferences++;
+            }
+            if (!o[o.length - 1].equals(r[r.length - 1])) {
+                differences++;
+                if (differences <= MAX_REPORTED_DIFFERENCES) {
+                    System.out.println("Line " + (i + 1) + ": expected <" + reference.get(i) + "> found <" + output.get(i) + ">");
+                }
+            }
+        }
+        differences += Math.abs(output.size() - reference.size());
+        if (tokenDifferences > 0) {
+            System.out.println(tokenDifferences + " tokens are not aligned with the reference");
+        }
+        System.out.println("Sense differences: " + differences + "/" + Math.max(output.size(), reference.size()));
+        return differences;
+    }
+
+    private static void usage() {
+        System.out.println("JIGSAW evaluation harness");
+        System.out.println("Usage: -cf <configuration file> -i <tagged input file> -r <reference output> -o <output file> -n <runs>");
+        System.out.println("\t-r is optional, if it's missing the output is not compared");
+        System.out.println("\t-o is optional, if it's missing the output is not saved");
+        System.out.println("\t-n is optional, number of runs on the input (default 1), the output of the last run is compared");
+    }
+}
@@ -0,0 +1,172 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import jigsaw.mwn.MWNBackend;
+import jigsaw.mwn.MWNLazyBackend;
+import jigsaw.mwn.MWNapi_ext;
+import jigsaw.mwn.MultiWordNet;
+import jigsaw.nlp.SimpleItalianTextProcessing;
+import jigsaw.utils.DBAccess;
+
+/**
+ * Knowledge base used by JIGSAWit: MultiWordNet (with the synset pair caches)
+ * and the Italian NLP resources. MultiWordNet is read only once, when the
+ * knowledge base is built, from the database, from the dump set by mwn.dump
+ * or from the snapshot file set by mwn.snapshot (the snapshot is saved the
+ * first time MultiWordNet is loaded from the database or the dump, and it is
+ * loaded again from them if the snapshot is not valid). With
+ * mwn.lazy=true MultiWordNet is not loaded, the synsets are read from the
+ * database when they are requested (see {@link MWNLazyBackend}). The
+ * knowledge base is never modified by the disambiguation, so it can be shared
+ * by any number of JIGSAWit instances, also with different wsd.* parameters,
+ * and by concurrent threads.
+ *
+ * @author Basile Pierpaolo
+ */
+public final class ItalianKnowledgeBase {
+
+    private final MultiWordNet multiWordNet;
+    private final SimpleItalianTextProcessing textProcessing;
+
+    /**
+     * Build the knowledge base
+     *
+     * @param props Configuration properties
+     * @throws Exception Exception
+     */
+    public ItalianKnowledgeBase(Properties props) throws Exception {
+        Logger.getLogger(ItalianKnowledgeBase.class.getName()).log(Level.INFO, "Load knowledge base...");
+        DBAccess dbaccess = new DBAccess(props);
+        MWNBackend backend;
+        if (Boolean.parseBoolean(props.getProperty("mwn.lazy", "false"))) {
+            backend = new MWNLazyBackend(dbaccess, Integer.parseInt(props.getProperty("mwn.lazy.cacheSize", "100000")), Integer.parseInt(props.getProperty("mwn.lazy.connections", "4")));
+        } else {
+            backend = loadMultiWordNet(dbaccess, props);
+        }
+        multiWordNet = new MultiWordNet(backend);
+        multiWordNet.setCacheSize(Integer.parseInt(props.getProperty("mwn.cacheSize", "0")));
+        textProcessing = new SimpleItalianTextProcessing(new File(props.getProperty("nlp.posTagModel")), new File(props.getProperty("nlp.stopWordFile")), new File(props.getProperty("nlp.morph-it")), KnowledgeBase.getSentenceModel(props));
+    }
+
+    private static MWNapi_ext loadMultiWordNet(DBAccess dbaccess, Properties props) throws Exception {
+        MWNapi_ext mwnApi = new MWNapi_ext(dbaccess);
+        String snapshot = props.getProperty("mwn.snapshot");
+        long fingerprint = getSourceFingerprint(props);
+        if (snapshot != null && new File(snapshot).exists()) {
+            try {
+                mwnApi.initFromSnapshot(new File(snapshot), fingerprint);
+                return mwnApi;
+            } catch (IOException ex) {
+                Logger.getLogger(ItalianKnowledgeBase.class.getName()).log(Level.WARNING, "MultiWordNet snapshot not valid, load MultiWordNet again: " + snapshot, ex);
+            }
+        }
+        boolean loaded;
+        if (props.getProperty("mwn.dump") != null) {
+            loaded = mwnApi.initFromDump(new File(props.getProperty("mwn.dump")));
+        } else {
+            loaded = mwnApi.init();
+        }
+        if (!loaded) {
+            throw new Exception("MultiWordNet not loaded", mwnApi.getLoadError());
+        }
+        if (snapshot != null) {
+            try {
+                mwnApi.writeSnapshot(new File(snapshot), fingerprint);
+                Logger.getLogger(ItalianKnowledgeBase.class.getName()).log(Level.INFO, "MultiWordNet snapshot saved: {0}", snapshot);
+            } catch (Exception ex) {
+                Logger.getLogger(ItalianKnowledgeBase.class.getName()).log(Level.WARNING, "Error to save the MultiWordNet snapshot", ex);
+            }
+        }
+        return mwnApi;
+    }
+
+    /**
+     * Fingerprint of the source of MultiWordNet: the name, size and last
+     * modified time of the dump files when mwn.dump is set, otherwise the
+     * database address and schema (changes to the content of the database are
+     * not detected, remove the snapshot after them).
+     */
+    private static long getSourceFingerprint(Properties props) throws IOException {
+        CRC32 crc = new CRC32();
+        String dump = props.getProperty("mwn.dump");
+        if (dump != null) {
+            File file = new File(dump);
+            File[] files = file.isDirectory() ? file.listFiles() : new File[]{file};
+            if (files != null) {
+                Arrays.sort(files);
+                for (File f : files) {
+                    crc.update((f.getName() + "\t" + f.length() + "\t" + f.lastModified() + "\n").getBytes("UTF-8"));
+                }
+            }
+        } else {
+            crc.update((props.getProperty("mwn.url") + props.getProperty("mwn.address") + ":" + props.getProperty("mwn.port") + "/" + props.getProperty("mwn.schema")).getBytes("UTF-8"));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Build the knowledge base from a configuration file
+     *
+     * @param configFile Configuration file
+     * @return Knowledge base
+     * @throws Exception Exception
+     */
+    public static ItalianKnowledgeBase load(File configFile) throws Exception {
+        Properties props = new Properties();
+        FileReader reader = new FileReader(configFile);
+        props.load(reader);
+        reader.close();
+        return new ItalianKnowledgeBase(props);
+    }
+
+    public MultiWordNet getMultiWordNet() {
+        return multiWordNet;
+    }
+
+    public SimpleItalianTextProcessing getTextProcessing() {
+        return textProcessing;
+    }
+}
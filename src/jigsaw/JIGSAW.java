@@ -38,13 +38,25 @@
 package jigsaw;
 
 import java.io.*;
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import jigsaw.data.SenseSignatures;
+import jigsaw.data.TermBag;
+import jigsaw.data.TermScope;
 import jigsaw.data.Token;
 import jigsaw.data.TokenGroup;
+import jigsaw.data.Vocabulary;
 import jigsaw.nlp.SimpleTextProcessing;
+import jigsaw.utils.BatchRunner;
+import jigsaw.utils.ChunkReader;
 import jigsaw.utils.CommandUtils;
+import jigsaw.utils.Metrics;
+import jigsaw.utils.PhaseTimer;
+import jigsaw.wn.HypernymIndex;
 import jigsaw.wn.Tag2Wn;
 import jigsaw.wn.WordNet;
 import net.sf.extjwnl.data.PointerType;
@@ -84,6 +96,49 @@ public class JIGSAW {
     private double theta;
     private double sigma;
     private int lookGram;
+    private int nounWindow = 0;
+    private int threads = 1;
+    private ForkJoinPool pool = null;
+    /**
+     * Number of noun pairs computed before the support is updated
+     */
+    private static final int NOUN_PAIR_BLOCK = 4096;
+    /**
+     * Number of noun pairs computed by a single fork/join task
+     */
+    private static final int NOUN_PAIR_TASK = 16;
+    /**
+     * Default number of lines of the chunks read from the input
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 0;
+    /**
+     * Nouns extracted from the synset glosses, the key is built by glossKey
+     */
+    private Map<Long, TokenGroup> glossNounCache = null;
+    /**
+     * Compiled signatures of adjectives and adverbs, null if not available.
+     * They are used only while depth is the depth of the signature file
+     */
+    private SenseSignatures senseSignatures = null;
+    /**
+     * Stems of the gloss terms, shared by all the documents. The term ids are
+     * assigned by a {@link TermScope} for each target word
+     */
+    private static final int STEM_CACHE_SIZE = 100000;
+    private final ConcurrentLinkedHashMap<String, String> stemCache = new ConcurrentLinkedHashMap.Builder<String, String>().maximumWeightedCapacity(STEM_CACHE_SIZE).build();
+    private final TermScope.Stemmer stemmer = new TermScope.Stemmer() {
+
+        @Override
+        public String stem(String term) {
+            String stem = stemCache.get(term);
+            if (stem == null) {
+                stem = textProcessing.stem(term);
+                stemCache.put(term, stem);
+            }
+            return stem;
+        }
+    };
+    private PhaseTimer phaseTimer = null;
     private static final double s_verb = 1.977;
     private static final double s_noun = 2.688;
     private static final double s_adj = 2.855;
@@ -94,16 +149,52 @@ public class JIGSAW {
     public JIGSAW(File configFile) {
         try {
             Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "WSD-JIGSAW Init...");
-            init(configFile);
+            Properties config = loadProperties(configFile);
+            init(config, new KnowledgeBase(config));
+        } catch (Exception ex) {
+            Logger.getLogger(JIGSAW.class.getName()).log(Level.SEVERE, "Unable to init JIGSAW", ex);
+        }
+    }
+
+    /**
+     * Creates a new instance which uses a shared knowledge base, only the wsd.*
+     * properties of the configuration file are used
+     *
+     * @param configFile Configuration file
+     * @param knowledgeBase Knowledge base
+     */
+    public JIGSAW(File configFile, KnowledgeBase knowledgeBase) {
+        try {
+            Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "WSD-JIGSAW Init...");
+            init(loadProperties(configFile), knowledgeBase);
         } catch (Exception ex) {
             Logger.getLogger(JIGSAW.class.getName()).log(Level.SEVERE, "Unable to init JIGSAW", ex);
         }
     }
 
-    private void init(File configFile) {
+    /**
+     * Creates a new instance which uses a shared knowledge base, only the wsd.*
+     * properties are used
+     *
+     * @param props Configuration properties
+     * @param knowledgeBase Knowledge base
+     */
+    public JIGSAW(Properties props, KnowledgeBase knowledgeBase) {
+        Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "WSD-JIGSAW Init...");
+        init(props, knowledgeBase);
+    }
+
+    private static Properties loadProperties(File configFile) throws IOException {
+        Properties config = new Properties();
+        FileReader reader = new FileReader(configFile);
+        config.load(reader);
+        reader.close();
+        return config;
+    }
+
+    private void init(Properties config, KnowledgeBase knowledgeBase) {
         try {
-            this.props = new Properties();
-            props.load(new FileReader(configFile));
+            this.props = config;
             depth = Integer.parseInt(props.getProperty("wsd.depth"));
             commonDepth = Integer.parseInt(props.getProperty("wsd.commonDepth"));
             measure = Integer.parseInt(props.getProperty("wsd.measure"));
@@ -114,17 +205,38 @@ public class JIGSAW {
             sigma = Double.parseDouble(props.getProperty("wsd.sigma"));
             maxVerb = Integer.parseInt(props.getProperty("wsd.maxVerb"));
             lookGram = Integer.parseInt(props.getProperty("wsd.lookGram"));
+            nounWindow = Integer.parseInt(props.getProperty("wsd.nounWindow", "0"));
+            setThreads(Integer.parseInt(props.getProperty("wsd.threads", "1")));
+            setGlossCacheSize(Integer.parseInt(props.getProperty("wsd.glossCacheSize", "0")));
             verbose = Boolean.valueOf(props.getProperty("wsd.verbose")).booleanValue();
             this.posTagNotation = Boolean.valueOf(props.getProperty("wsd.posTagNotation")).booleanValue();
             this.shortOutput = Boolean.valueOf(props.getProperty("wsd.shortOutput")).booleanValue();
-            this.wordNet = new WordNet();
-            this.wordNet.init(new File(props.getProperty("wn.configFile")));
-            this.textProcessing = new SimpleTextProcessing(new File(props.getProperty("nlp.tokenModel")), new File(props.getProperty("nlp.posTagModel")), new File(props.getProperty("nlp.stopWordFile")));
+            this.wordNet = knowledgeBase.getWordNet();
+            this.textProcessing = knowledgeBase.getTextProcessing();
+            SenseSignatures signatures = knowledgeBase.getSenseSignatures();
+            if (signatures != null && signatures.getDepth() != depth) {
+                Logger.getLogger(JIGSAW.class.getName()).log(Level.WARNING, "Signature file compiled with depth {0}, signatures are not used", signatures.getDepth());
+            }
+            this.senseSignatures = signatures;
         } catch (Exception ex) {
             Logger.getLogger(JIGSAW.class.getName()).log(Level.SEVERE, "ERROR to init JIGSAW algorithm (check config file)", ex);
         }
     }
 
+    private static String[] concat(String[][] arrays) {
+        int n = 0;
+        for (int i = 0; i < arrays.length; i++) {
+            n += arrays[i].length;
+        }
+        String[] result = new String[n];
+        int k = 0;
+        for (int i = 0; i < arrays.length; i++) {
+            System.arraycopy(arrays[i], 0, result, k, arrays[i].length);
+            k += arrays[i].length;
+        }
+        return result;
+    }
+
     private TokenGroup getToken(String[] tokens, String[] posTags, String[] stems, String[] lemmas, boolean convertTag) throws Exception {
         TokenGroup result = new TokenGroup();
         try {
@@ -141,7 +253,7 @@ public class JIGSAW {
                 token.setPosTag(posTag);
                 token.setStem(stems[i]);
                 token.setLemma(lemmas[i]);
-                String[] syns = wordNet.getAllSynsetByWord(token.getLemma(), posTag);
+                int[] syns = wordNet.getAllSynsetByWord(token.getLemma(), posTag);
                 if (syns == null) {
                     syns = wordNet.getAllSynsetByWord(token.getToken(), posTag);
                 }
@@ -151,7 +263,7 @@ public class JIGSAW {
                 if (syns != null) {
                     token.setSyns(syns);
                 } else {
-                    token.setSyns(new String[0]);
+                    token.setSyns(new int[0]);
                 }
                 result.add(token);
             }
@@ -343,12 +455,12 @@ public class JIGSAW {
         }
     }
 
-    private String generateContextGloss(TokenGroup tg) throws Exception {
+    String generateContextGloss(TokenGroup tg) throws Exception {
         try {
             StringBuilder sb = new StringBuilder();
             for (int i = 0; i < tg.size(); i++) {
                 Token t = tg.get(i);
-                String[] offset = t.getSyns();
+                int[] offset = t.getSyns();
                 for (int j = 0; offset != null && j < offset.length; j++) {
                     String description = wordNet.getNormalizeDescriptionByOffset(offset[j], t.getPosTag());
                     sb.append(this.normalizeDescription(description, t));
@@ -366,7 +478,7 @@ public class JIGSAW {
         }
     }
 
-    private String generateTargetGloss(Token t, int i) throws Exception {
+    String generateTargetGloss(Token t, int i) throws Exception {
         try {
             StringBuilder description = new StringBuilder();
             description.append(wordNet.getAllGlossByOffset(t.getSyns()[i], t.getPosTag()));
@@ -411,42 +523,32 @@ public class JIGSAW {
         }
     }
 
-    private double compareSimWeight(String tg, String cg, String tokenStem) {
+    /**
+     * Overlap between the distinct terms of a sense and the bag of the context
+     * gloss. The terms of the sense are weighted by the number of occurrences
+     * in the context (SIM_OCCURENCE) or by their inverse frequency (SIM_WEIGTH)
+     */
+    double compareSimWeight(int[] signature, TermBag context, int tokenStem, Vocabulary vocabulary) {
         try {
-            Map<String, Integer> count = new HashMap<String, Integer>();
-            String[] tokens = cg.split("[ ]+");
-            for (int i = 0; i < tokens.length; i++) {
-                Integer c = count.get(textProcessing.stem(tokens[i]));
-                if (c == null) {
-                    count.put(textProcessing.stem(tokens[i]), new Integer(1));
-                } else {
-                    count.put(textProcessing.stem(tokens[i]), new Integer(c.intValue() + 1));
-                }
-            }
-            int n = tokens.length;
-            tokens = tg.split("[ ]+");
-            int nt = tokens.length;
+            int n = context.size();
             double result = 0;
-            ArrayList stop = new ArrayList();
-            for (int i = 0; i < tokens.length; i++) {
-                String stem = textProcessing.stem(tokens[i]);
-                Integer c = count.get(stem);
-                if (c != null && !stop.contains(stem) && !stem.equals(tokenStem)) {
+            for (int i = 0; i < signature.length; i++) {
+                int c = context.getCount(signature[i]);
+                if (c > 0 && signature[i] != tokenStem) {
                     double intR = 0;
                     if (this.measure == SIM_WEIGTH) {
-                        intR = Math.log((double) n / (double) c.intValue());
+                        intR = Math.log((double) n / (double) c);
                     } else {
-                        intR = (double) c.intValue();
+                        intR = (double) c;
                     }
                     if (verbose) {
-                        Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Find token: {0} c: {1} n: {2} sim: {3}", new Object[]{tokens[i], c.intValue(), n, intR});
+                        Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Find token: {0} c: {1} n: {2} sim: {3}", new Object[]{vocabulary.getTerm(signature[i]), c, n, intR});
                     }
                     result += intR;
-                    stop.add(stem);
                 }
             }
             if (verbose) {
-                Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Sim: {0} N.context: {1} N.target: {2}", new Object[]{result, n, nt});
+                Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Sim: {0} N.context: {1} N.signature: {2}", new Object[]{result, n, signature.length});
             }
             return result;
         } catch (Exception ex) {
@@ -454,35 +556,20 @@ public class JIGSAW {
         }
     }
 
-    private double compareTfIdf(String tg, String cg, String tokenStem) {
+    double compareTfIdf(int[] signature, TermBag context, int tokenStem, Vocabulary vocabulary) {
         try {
-            Map<String, Integer> count = new HashMap<String, Integer>();
-            String[] tokens = cg.split("[ ]+");
-            for (int i = 0; i < tokens.length; i++) {
-                Integer c = count.get(tokens[i]);
-                if (c == null) {
-                    count.put(tokens[i], new Integer(1));
-                } else {
-                    count.put(tokens[i], new Integer(c.intValue() + 1));
-                }
-            }
-            int n = tokens.length;
-            tokens = tg.split("[ ]+");
-            int nt = tokens.length;
+            int n = context.size();
             double result = 0;
-            Set<String> stop = new HashSet<String>();
             int tf = 0;
             int df = 0;
-            for (int i = 0; i < tokens.length; i++) {
-                String stem = textProcessing.stem(tokens[i]);
-                Integer c = (Integer) count.get(stem);
-                if (c != null && !stop.contains(stem) && !stem.equals(tokenStem)) {
-                    df += c.intValue();
+            for (int i = 0; i < signature.length; i++) {
+                int c = context.getCount(signature[i]);
+                if (c > 0 && signature[i] != tokenStem) {
+                    df += c;
                     if (verbose) {
-                        Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Find token: " + tokens[i] + " c: " + c.intValue());
+                        Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Find token: " + vocabulary.getTerm(signature[i]) + " c: " + c);
                     }
                     tf++;
-                    stop.add(stem);
                 }
             }
             if (tf == 0) {
@@ -491,7 +578,7 @@ public class JIGSAW {
                 result = tf * (Math.log((double) n / (double) df) + 1);
             }
             if (verbose) {
-                Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Sim: {0} N.context: {1} N.target: {2}", new Object[]{result, n, nt});
+                Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Sim: {0} N.context: {1} N.signature: {2}", new Object[]{result, n, signature.length});
             }
             return result;
         } catch (Exception ex) {
@@ -499,27 +586,62 @@ public class JIGSAW {
         }
     }
 
-    private double sim(Token t1, Token t2) {
+    /**
+     * Build the bag of the context gloss terms using the ids of the compiled
+     * signatures. The terms are stemmed for the SIM_WEIGTH and SIM_OCCURENCE
+     * measures.
+     */
+    private TermBag getSignatureContextBag(TermScope terms, String cg, boolean stem) {
+        int[] ids = terms.getIds(cg, stem);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = senseSignatures.getTermId(terms.getTerm(ids[i]));
+        }
+        return new TermBag(ids);
+    }
+
+    /**
+     * @return A new scope for the term ids used to compare a target word with
+     * its context
+     */
+    TermScope newTermScope() {
+        return new TermScope(stemmer);
+    }
+
+    /**
+     * Return the stemmed terms of the signature used to compare a sense of an
+     * adjective or adverb with the context, each term is reported once in
+     * order of first occurrence
+     */
+    String[] getSignatureTerms(int offset, String pos) throws Exception {
+        Token t = new Token();
+        t.setPosTag(pos);
+        t.setStem("");
+        t.setSyns(new int[]{offset});
+        TermScope scope = newTermScope();
+        int[] ids = scope.getDistinctStemIds(generateTargetGloss(t, 0));
+        String[] terms = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            terms[i] = scope.getTerm(ids[i]);
+        }
+        return terms;
+    }
+
+    WordNet getWordNet() {
+        return wordNet;
+    }
+
+    double sim(Token t1, Token t2) {
         try {
             double max = -Double.MAX_VALUE;
-            String[] s1 = t1.getSyns();
-            String[] s2 = t2.getSyns();
+            int[] s1 = t1.getSyns();
+            int[] s2 = t2.getSyns();
             if (verbose) {
                 Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Sim start on: {0} syns.", s1.length * s2.length);
             }
             for (int i = 0; i < s1.length; i++) {
                 for (int j = 0; j < s2.length; j++) {
                     int d = wordNet.getDepthByOffset(s1[i], s2[j], t1.getPosTag(), PointerType.HYPERNYM, depth);
-
-                    double sim = 0;
-                    if (d == 0) {
-                        sim = -Math.log((double) 1 / (double) (2 * WordNet.MAX_DEPTH));
-                    } else if (d <= wordNet.getMaxDepth()) {
-                        sim = -Math.log((double) d / (double) (2 * WordNet.MAX_DEPTH));
-                    } else {
-                        sim = -Math.log((double) (WordNet.MAX_DEPTH + 1) / (double) (2 * WordNet.MAX_DEPTH)) / -Math.log((double) 1 / (double) WordNet.MAX_DEPTH);
-                    }
-
+                    double sim = distanceSim(d);
                     if (sim > max) {
                         max = sim;
                     }
@@ -532,6 +654,16 @@ public class JIGSAW {
         }
     }
 
+    private double distanceSim(int d) {
+        if (d == 0) {
+            return -Math.log((double) 1 / (double) (2 * WordNet.MAX_DEPTH));
+        } else if (d <= wordNet.getMaxDepth()) {
+            return -Math.log((double) d / (double) (2 * WordNet.MAX_DEPTH));
+        } else {
+            return -Math.log((double) (WordNet.MAX_DEPTH + 1) / (double) (2 * WordNet.MAX_DEPTH)) / -Math.log((double) 1 / (double) WordNet.MAX_DEPTH);
+        }
+    }
+
     private double gauss(int d1, int d2) {
         int x = d1 - d2;
         if (verbose) {
@@ -557,20 +689,20 @@ public class JIGSAW {
         return 1 / (Math.pow((double) z + 1, s) * computeH(n, s));
     }
 
-    private String commonMinSyn(Token t1, Token t2, PointerType r) {
+    private int commonMinSyn(Token t1, Token t2, PointerType r) {
         try {
             if (verbose) {
                 Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Find min common synset: {0}, {1}", new Object[]{t1.getToken(), t2.getToken()});
             }
-            String[] s1 = t1.getSyns();
-            String[] s2 = t2.getSyns();
-            String[] result;
-            String offset = "-1";
+            int[] s1 = t1.getSyns();
+            int[] s2 = t2.getSyns();
+            int[] result;
+            int offset = -1;
             int minDepth = wordNet.getMaxDepth() + 1;
             for (int i = 0; i < s1.length; i++) {
                 for (int j = 0; j < s2.length; j++) {
                     result = wordNet.getCommon(s1[i], s2[j], t1.getPosTag(), r, commonDepth);
-                    int rdepth = Integer.parseInt(result[0]);
+                    int rdepth = result[0];
                     if (rdepth < minDepth) {
                         offset = result[1];
                         minDepth = rdepth;
@@ -580,19 +712,19 @@ public class JIGSAW {
             return offset;
         } catch (Exception ex) {
             Logger.getLogger(JIGSAW.class.getName()).log(Level.SEVERE, "Error to find MSC...return unknow", ex);
-            return "U";
+            return -1;
         }
     }
     
     //NOT USED 
-    private double simVerbNoun(String offset, int indexSyn, Token target, TokenGroup verbs) {
+    private double simVerbNoun(int offset, int indexSyn, Token target, TokenGroup verbs) {
         try {
             double maxPhi = -Double.MAX_VALUE;
             for (int i = 0; i < verbs.size(); i++) {
                 if (verbs.get(i).getSyn() == null) {
                     continue;
                 }
-                String syn = verbs.get(i).getSyn();
+                int syn = Integer.parseInt(verbs.get(i).getSyn());
                 TokenGroup name = getNameInDef(syn, verbs.get(i).getPosTag());
                 double somGauss = 0;
                 double somTot = 0;
@@ -618,7 +750,181 @@ public class JIGSAW {
         }
     }
 
-    private void setSynNouns(TokenGroup tg) throws Exception {
+    /**
+     * Similarity between two nouns and the membership of their synsets in the
+     * most specific common subsumer
+     */
+    private static class NounPair {
+
+        private double v;
+        private boolean[] hyp1;
+        private boolean[] hyp2;
+    }
+
+    private class NounPairTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TokenGroup tg;
+        private final HypernymIndex index;
+        private final int[] first;
+        private final int[] second;
+        private final NounPair[] pairs;
+        private final int start;
+        private final int end;
+
+        NounPairTask(TokenGroup tg, HypernymIndex index, int[] first, int[] second, NounPair[] pairs, int start, int end) {
+            this.tg = tg;
+            this.index = index;
+            this.first = first;
+            this.second = second;
+            this.pairs = pairs;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= NOUN_PAIR_TASK) {
+                try {
+                    for (int p = start; p < end; p++) {
+                        pairs[p] = computeNounPair(tg.get(first[p]), tg.get(second[p]), index);
+                    }
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new NounPairTask(tg, index, first, second, pairs, start, middle), new NounPairTask(tg, index, first, second, pairs, middle, end));
+            }
+        }
+    }
+
+    /**
+     * Compute the similarity of two nouns, their most specific common
+     * subsumer and the synsets under the subsumer. If the hypernym index of
+     * the document is given, the distance and the common subsumer of each
+     * synset pair are computed by a single merge of the ancestors and the
+     * membership is a lookup in the same ancestors, otherwise each value is
+     * computed by WordNet.
+     */
+    private NounPair computeNounPair(Token t1, Token t2, HypernymIndex index) throws Exception {
+        if (verbose) {
+            Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Compute sim, to: {0} and {1}", new Object[]{t1.getToken(), t2.getToken()});
+        }
+        NounPair pair = new NounPair();
+        int c;
+        if (index != null) {
+            int[] s1 = t1.getSyns();
+            int[] s2 = t2.getSyns();
+            double max = -Double.MAX_VALUE;
+            int minDepth = wordNet.getMaxDepth() + 1;
+            c = -1;
+            for (int i = 0; i < s1.length; i++) {
+                for (int j = 0; j < s2.length; j++) {
+                    int[] r = index.getDistanceAndCommon(s1[i], s2[j], depth, 2 * WordNet.MAX_DEPTH, commonDepth, WordNet.MAX_DEPTH + 1);
+                    double sim = distanceSim(r[0]);
+                    if (sim > max) {
+                        max = sim;
+                    }
+                    if (r[1] < minDepth) {
+                        c = r[2];
+                        minDepth = r[1];
+                    }
+                }
+            }
+            pair.v = max * gauss(t1.getGroupPosition(), t2.getGroupPosition());
+            if (verbose) {
+                Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Max similarty: {0}", pair.v);
+            }
+        } else {
+            pair.v = sim(t1, t2) * gauss(t1.getGroupPosition(), t2.getGroupPosition());
+            if (verbose) {
+                Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Max similarty: {0}", pair.v);
+            }
+            if (verbose) {
+                Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Compute common min syn.");
+            }
+            c = commonMinSyn(t1, t2, PointerType.HYPERNYM);
+        }
+        if (verbose) {
+            Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Min common hype: {0}", wordNet.getAllDescriptionByOffset(c, "n"));
+        }
+        int[] syns = t1.getSyns();
+        pair.hyp1 = new boolean[syns.length];
+        for (int k = 0; k < syns.length; k++) {
+            pair.hyp1[k] = index != null ? index.isAncestor(c, syns[k]) : wordNet.isHypernym(c, syns[k], t1.getPosTag());
+        }
+        syns = t2.getSyns();
+        pair.hyp2 = new boolean[syns.length];
+        for (int k = 0; k < syns.length; k++) {
+            pair.hyp2[k] = index != null ? index.isAncestor(c, syns[k]) : wordNet.isHypernym(c, syns[k], t2.getPosTag());
+        }
+        return pair;
+    }
+
+    /**
+     * Compute the noun pairs, using the fork/join pool when more than one
+     * thread is set
+     */
+    private void computeNounPairs(TokenGroup tg, HypernymIndex index, int[] first, int[] second, NounPair[] pairs, int size) throws Exception {
+        if (pool == null) {
+            for (int p = 0; p < size; p++) {
+                pairs[p] = computeNounPair(tg.get(first[p]), tg.get(second[p]), index);
+            }
+        } else {
+            pool.invoke(new NounPairTask(tg, index, first, second, pairs, 0, size));
+        }
+    }
+
+    /**
+     * Add the noun pairs to the support following the pair order, so that the
+     * sums do not depend on the number of threads
+     */
+    private void addNounPairs(int[] first, int[] second, NounPair[] pairs, int size, double[][] support, double[] normalization) {
+        for (int p = 0; p < size; p++) {
+            int i = first[p];
+            int j = second[p];
+            NounPair pair = pairs[p];
+            for (int k = 0; k < pair.hyp1.length; k++) {
+                if (pair.hyp1[k]) {
+                    support[i][k] += pair.v;
+                }
+            }
+            for (int k = 0; k < pair.hyp2.length; k++) {
+                if (pair.hyp2[k]) {
+                    support[j][k] += pair.v;
+                }
+            }
+            normalization[i] += pair.v;
+            normalization[j] += pair.v;
+            pairs[p] = null;
+        }
+    }
+
+    /**
+     * Return the hypernym index of the noun synsets, null if the depths are
+     * not covered by the index
+     */
+    private HypernymIndex getNounIndex(TokenGroup tg) {
+        if (depth < 0 || depth > WordNet.MAX_DEPTH || commonDepth < 0 || commonDepth > WordNet.MAX_DEPTH || tg.size() < 2) {
+            return null;
+        }
+        int size = 0;
+        for (int i = 0; i < tg.size(); i++) {
+            size += tg.get(i).getSyns().length;
+        }
+        int[] offsets = new int[size];
+        size = 0;
+        for (int i = 0; i < tg.size(); i++) {
+            int[] syns = tg.get(i).getSyns();
+            System.arraycopy(syns, 0, offsets, size, syns.length);
+            size += syns.length;
+        }
+        return wordNet.getHypernymIndex(offsets, "n");
+    }
+
+    void setSynNouns(TokenGroup tg) throws Exception {
         try {
             if (verbose) {
                 Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Number of noun: {0}", tg.size());
@@ -632,45 +938,31 @@ public class JIGSAW {
             if (verbose) {
                 Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "MAX_SYN: {0}", MAX_SYN);
             }
-            double[][] v = new double[tg.size()][tg.size()];
-            String[][] c = new String[tg.size()][tg.size()];
             double support[][] = new double[tg.size()][MAX_SYN];
             double[] normalization = new double[tg.size()];
             //int max=0;
+            int[] first = new int[NOUN_PAIR_BLOCK];
+            int[] second = new int[NOUN_PAIR_BLOCK];
+            NounPair[] pairs = new NounPair[NOUN_PAIR_BLOCK];
+            HypernymIndex index = getNounIndex(tg);
+            int size = 0;
             for (int i = 0; i < tg.size(); i++) {
-                for (int j = 0; j < tg.size(); j++) {
-                    if (i < j) {
-                        if (verbose) {
-                            Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Compute sim, to: {0} and {1}", new Object[]{tg.get(i).getToken(), tg.get(j).getToken()});
-                        }
-                        v[i][j] = sim(tg.get(i), tg.get(j)) * gauss(tg.get(i).getGroupPosition(), tg.get(j).getGroupPosition());
-                        if (verbose) {
-                            Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Max similarty: {0}", v[i][j]);
-                        }
-                        if (verbose) {
-                            Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Compute common min syn.");
-                        }
-                        c[i][j] = commonMinSyn(tg.get(i), tg.get(j), PointerType.HYPERNYM);
-                        if (verbose) {
-                            Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Min common hype: {0}", wordNet.getAllDescriptionByOffset(c[i][j], "n"));
-                        }
-                        String[] syns = tg.get(i).getSyns();
-                        for (int k = 0; k < syns.length; k++) {
-                            if (wordNet.isHypernym(c[i][j], syns[k], tg.get(i).getPosTag())) {
-                                support[i][k] += v[i][j];
-                            }
-                        }
-                        syns = tg.get(j).getSyns();
-                        for (int k = 0; k < syns.length; k++) {
-                            if (wordNet.isHypernym(c[i][j], syns[k], tg.get(j).getPosTag())) {
-                                support[j][k] += v[i][j];
-                            }
-                        }
-                        normalization[i] += v[i][j];
-                        normalization[j] += v[i][j];
+                //when nounWindow > 0 only the nouns in the window [i-nounWindow, i+nounWindow] are compared
+                for (int j = i + 1; j < tg.size() && (nounWindow <= 0 || j - i <= nounWindow); j++) {
+                    first[size] = i;
+                    second[size] = j;
+                    size++;
+                    if (size == NOUN_PAIR_BLOCK) {
+                        computeNounPairs(tg, index, first, second, pairs, size);
+                        addNounPairs(first, second, pairs, size, support, normalization);
+                        size = 0;
                     }
                 }
             }
+            if (size > 0) {
+                computeNounPairs(tg, index, first, second, pairs, size);
+                addNounPairs(first, second, pairs, size, support, normalization);
+            }
 
             for (int i = 0; i < tg.size(); i++) {
 
@@ -679,7 +971,7 @@ public class JIGSAW {
                 if (verbose) {
                     Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Check syn on token: {0}", tg.get(i).getToken());
                 }
-                String[] syns = tg.get(i).getSyns();
+                int[] syns = tg.get(i).getSyns();
                 double phi = 0;
                 StringBuilder buf = new StringBuilder();
 
@@ -706,7 +998,7 @@ public class JIGSAW {
                         maxSynPos = k;
                     }
 
-                    buf.append(syns[k]).append("/").append(phi);
+                    buf.append(synsetToString(syns[k])).append("/").append(phi);
                     if (k < syns.length - 1) {
                         buf.append(" ");
                     }
@@ -714,7 +1006,7 @@ public class JIGSAW {
                 }
                 if (shortOutput) {
                     if (maxPhi >= cut) {
-                        tg.get(i).setSyn(syns[maxSynPos]);
+                        tg.get(i).setSyn(synsetToString(syns[maxSynPos]));
                     }
                 } else {
                     tg.get(i).setSyn(buf.toString());
@@ -729,9 +1021,9 @@ public class JIGSAW {
     private double simVerb(Token t1, Token t2) {
         try {
             double max = -Double.MAX_VALUE;
-            String[] s1;
+            int[] s1;
             s1 = t1.getSyns();
-            String[] s2;
+            int[] s2;
             s2 = t2.getSyns();
             if (verbose) {
                 Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Sim start on: {0} syns.", s1.length * s2.length);
@@ -767,10 +1059,10 @@ public class JIGSAW {
         }
     }
 
-    private double simVerb(String offset, Token t2) {
+    private double simVerb(int offset, Token t2) {
         try {
             double max = -Double.MAX_VALUE;
-            String[] s2;
+            int[] s2;
             s2 = t2.getSyns();
             for (int j = 0; j < s2.length; j++) {
 
@@ -815,66 +1107,93 @@ public class JIGSAW {
         }
     }
 
-    private TokenGroup getNameInDef(String offset, String pos) {
-        TokenGroup result = new TokenGroup();
-        try {
-            String description = wordNet.getAllGlossByOffset(offset, pos);
-            description = normalizeDescription(description);
-            String[] tokens = textProcessing.tokenize(description);
-            if (verbose) {
-                Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Description: {0}", description);
-            }
-            String[] posTags = textProcessing.posTagging(tokens);
-            for (int i = 0; i < posTags.length; i++) {
-                if (textProcessing.isStopWord(tokens[i])) {
-                    continue;
-                }
-                String pt = Tag2Wn.getPos(posTags[i]);
-                if (pt.equals("n")) {
-                    Token t = new Token();
-                    t.setGroupPosition(result.size());
-                    t.setPosTag(pt);
-                    t.setToken(tokens[i]);
-                    t.setStem(textProcessing.stem(t.getToken()));
-                    t.setLemma(wordNet.lemmatize(tokens[i], pt));
-                    t.setSyn(null);
-                    t.setSyns(null);
-                    String[] syns = wordNet.getAllSynsetByWord(t.getToken(), t.getPosTag());
-                    if (syns == null) {
-                        syns = wordNet.getAllSynsetByWord(t.getLemma(), t.getPosTag());
-                    }
-                    if (syns == null) {
-                        syns = wordNet.getAllSynsetByWord(t.getStem(), t.getPosTag());
-                    }
-                    if (syns == null) {
-                        continue;
-                    }
-                    t.setSyns(syns);
-                    result.add(t);
-                }
+    private long glossKey(int offset, String pos) {
+        return ((long) offset << 8) | pos.charAt(0);
+    }
+
+    /**
+     * Return the nouns in the gloss of the synset. The nouns are extracted
+     * only the first time and then stored in the gloss cache, the returned
+     * TokenGroup must not be modified.
+     */
+    private TokenGroup getNameInDef(int offset, String pos) {
+        TokenGroup result = null;
+        Long key = null;
+        if (glossNounCache != null) {
+            key = glossKey(offset, pos);
+            result = glossNounCache.get(key);
+            Metrics.getInstance().countGlossCache(result != null);
+            if (result != null) {
+                return result;
             }
-            return result;
+        }
+        result = new TokenGroup();
+        try {
+            extractNameInDef(offset, pos, result);
         } catch (Exception ex) {
+            //the nouns found before the error are used, but they are not cached
             Logger.getLogger(JIGSAW.class.getName()).log(Level.SEVERE, "Error to extract nouns from description", ex);
             return result;
         }
+        if (glossNounCache != null) {
+            glossNounCache.put(key, result);
+        }
+        return result;
+    }
 
+    private void extractNameInDef(int offset, String pos, TokenGroup result) throws Exception {
+        Metrics.getInstance().countGlossTagging();
+        String description = wordNet.getAllGlossByOffset(offset, pos);
+        description = normalizeDescription(description);
+        String[] tokens = textProcessing.tokenize(description);
+        if (verbose) {
+            Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Description: {0}", description);
+        }
+        String[] posTags = textProcessing.posTagging(tokens);
+        for (int i = 0; i < posTags.length; i++) {
+            if (textProcessing.isStopWord(tokens[i])) {
+                continue;
+            }
+            String pt = Tag2Wn.getPos(posTags[i]);
+            if (pt.equals("n")) {
+                Token t = new Token();
+                t.setGroupPosition(result.size());
+                t.setPosTag(pt);
+                t.setToken(tokens[i]);
+                t.setStem(textProcessing.stem(t.getToken()));
+                t.setLemma(wordNet.lemmatize(tokens[i], pt));
+                t.setSyn(null);
+                t.setSyns(null);
+                int[] syns = wordNet.getAllSynsetByWord(t.getToken(), t.getPosTag());
+                if (syns == null) {
+                    syns = wordNet.getAllSynsetByWord(t.getLemma(), t.getPosTag());
+                }
+                if (syns == null) {
+                    syns = wordNet.getAllSynsetByWord(t.getStem(), t.getPosTag());
+                }
+                if (syns == null) {
+                    continue;
+                }
+                t.setSyns(syns);
+                result.add(t);
+            }
+        }
     }
 
-    private void setSynVerb(Token t, TokenGroup tg) throws Exception {
+    void setSynVerb(Token t, TokenGroup tg) throws Exception {
         try {
             if (t.getSyns() != null && t.getSyns().length == 1) {
                 if (shortOutput) {
-                    t.setSyn(t.getSyns()[0]);
+                    t.setSyn(synsetToString(t.getSyns()[0]));
                 } else {
-                    t.setSyn(t.getSyns()[0] + "/1");
+                    t.setSyn(synsetToString(t.getSyns()[0]) + "/1");
                 }
                 return;
             }
             if (verbose) {
                 Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "START synVerb on token: {0}", t.getToken());
             }
-            String[] syns = t.getSyns();
+            int[] syns = t.getSyns();
             double maxPhi = -Double.MAX_VALUE;
             int maxSynPos = 0;
             boolean exit = false;
@@ -925,14 +1244,14 @@ public class JIGSAW {
                 if (shortOutput && i < syns.length - 1 && phi > computeZIPF(i + 1, syns.length, s_verb)) {
                     exit = true;
                 }
-                buf.append(syns[i]).append("/").append(phi);
+                buf.append(synsetToString(syns[i])).append("/").append(phi);
                 if (i < syns.length - 1) {
                     buf.append(" ");
                 }
             }
             if (shortOutput) {
                 if (maxPhi >= cut) {
-                    t.setSyn(syns[maxSynPos]);
+                    t.setSyn(synsetToString(syns[maxSynPos]));
                 }
             } else {
                 t.setSyn(buf.toString());
@@ -943,13 +1262,13 @@ public class JIGSAW {
 
     }
 
-    private void setSynAdjAdv(Token t, TokenGroup tg) throws Exception {
+    void setSynAdjAdv(Token t, TokenGroup tg) throws Exception {
         try {
             if (t.getSyns() != null && t.getSyns().length == 1) {
                 if (shortOutput) {
-                    t.setSyn(t.getSyns()[0]);
+                    t.setSyn(synsetToString(t.getSyns()[0]));
                 } else {
-                    t.setSyn(t.getSyns()[0] + "/1");
+                    t.setSyn(synsetToString(t.getSyns()[0]) + "/1");
                 }
                 return;
             }
@@ -957,23 +1276,53 @@ public class JIGSAW {
             if (verbose) {
                 Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Context gloss: {0}", contextGloss);
             }
-            String[] syns = t.getSyns();
+            int[] syns = t.getSyns();
             double[] score = new double[syns.length];
             double N = 0;
             Arrays.fill(score, 0d);
             double maxSim = -Double.MAX_VALUE;
             int pos = -1;
             StringBuilder buf = new StringBuilder();
+            boolean stemContext = measure == SIM_OCCURENCE || measure == SIM_WEIGTH;
+            TermScope terms = newTermScope();
+            TermBag contextBag = null;
+            int tokenStem = -1;
+            TermBag signatureContextBag = null;
+            int signatureTokenStem = -1;
             for (int j = 0; j < syns.length; j++) {
-                String targetGloss = generateTargetGloss(t, j);
-                if (verbose) {
-                    Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Syn target gloss: {0}", targetGloss);
+                int[] signature = null;
+                if (senseSignatures != null && senseSignatures.getDepth() == depth) {
+                    signature = senseSignatures.getSignature(syns[j], t.getPosTag());
                 }
                 double sim = 0;
-                if (measure == SIM_OCCURENCE || measure == SIM_WEIGTH) {
-                    sim = compareSimWeight(targetGloss, contextGloss, t.getStem());
+                if (signature != null) {
+                    if (signatureContextBag == null) {
+                        signatureContextBag = getSignatureContextBag(terms, contextGloss, stemContext);
+                        if (t.getStem() != null) {
+                            signatureTokenStem = senseSignatures.getTermId(t.getStem());
+                        }
+                    }
+                    if (stemContext) {
+                        sim = compareSimWeight(signature, signatureContextBag, signatureTokenStem, senseSignatures);
+                    } else {
+                        sim = compareTfIdf(signature, signatureContextBag, signatureTokenStem, senseSignatures);
+                    }
                 } else {
-                    sim = compareTfIdf(targetGloss, contextGloss, t.getStem());
+                    String targetGloss = generateTargetGloss(t, j);
+                    if (verbose) {
+                        Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Syn target gloss: {0}", targetGloss);
+                    }
+                    if (contextBag == null) {
+                        contextBag = new TermBag(terms.getIds(contextGloss, stemContext));
+                        if (t.getStem() != null) {
+                            tokenStem = terms.getId(t.getStem());
+                        }
+                    }
+                    if (stemContext) {
+                        sim = compareSimWeight(terms.getDistinctStemIds(targetGloss), contextBag, tokenStem, terms);
+                    } else {
+                        sim = compareTfIdf(terms.getDistinctStemIds(targetGloss), contextBag, tokenStem, terms);
+                    }
                 }
                 if (verbose) {
                     Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Syn misure: {0}", sim);
@@ -988,7 +1337,7 @@ public class JIGSAW {
                     maxSim = score[j];
                     pos = j;
                 }
-                buf.append(syns[j]).append("/").append(score[j]);
+                buf.append(synsetToString(syns[j])).append("/").append(score[j]);
                 if (j < syns.length - 1) {
                     buf.append(" ");
                 }
@@ -996,15 +1345,15 @@ public class JIGSAW {
             if (t.getSyns().length > 0) {
                 if (shortOutput) {
                     if (pos == -1) {
-                        t.setSyn(syns[0]);
+                        t.setSyn(synsetToString(syns[0]));
                     } else {
                         if (maxSim >= cut) {
-                            t.setSyn(syns[pos]);
+                            t.setSyn(synsetToString(syns[pos]));
                         }
                     }
                 } else {
                     if (pos == -1) {
-                        t.setSyn(syns[0] + "/1");
+                        t.setSyn(synsetToString(syns[0]) + "/1");
                     } else {
                         t.setSyn(buf.toString());
                     }
@@ -1028,6 +1377,8 @@ public class JIGSAW {
             if (verbose) {
                 Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Start disambiguation (text)...");
             }
+            Metrics.getInstance().addTokens(tg.size());
+            long time = System.nanoTime();
             for (int tg_i = 0; tg_i < tg.size(); tg_i++) {
                 if (tg.get(tg_i).getPosTag().equals("v")) {
                     if (verbose) {
@@ -1037,6 +1388,7 @@ public class JIGSAW {
                     setSynVerb(tg.get(tg_i), context);
                 }
             }
+            time = addPhaseTime(PhaseTimer.VERBS, time);
             boolean call_noun = false;
             for (int tg_i = 0; tg_i < tg.size(); tg_i++) {
                 if (tg.get(tg_i).getPosTag().equals("n") && !call_noun) {
@@ -1045,6 +1397,7 @@ public class JIGSAW {
                     }
                     TokenGroup nouns = this.getNouns(tg);
                     setSynNouns(nouns);
+                    time = addPhaseTime(PhaseTimer.NOUNS, time);
                     call_noun = true;
                 } else if (tg.get(tg_i).getPosTag().equals("a") || tg.get(tg_i).getPosTag().equals("r")) {
                     if (verbose) {
@@ -1052,6 +1405,9 @@ public class JIGSAW {
                     }
                     TokenGroup context = this.getContext(tg, tg_i, false);
                     setSynAdjAdv(tg.get(tg_i), context);
+                    time = addPhaseTime(PhaseTimer.ADJ_ADV, time);
+                } else {
+                    time = System.nanoTime();
                 }
             }
 
@@ -1212,8 +1568,20 @@ public class JIGSAW {
     }
 
     public TokenGroup mapText(String text) throws Exception {
-        String[] tokens = textProcessing.tokenize(text);
-        String[] pos = textProcessing.posTagging(tokens);
+        long time = System.nanoTime();
+        String[] sentences = textProcessing.detectSentences(text);
+        String[][] sentenceTokens = new String[sentences.length][];
+        for (int i = 0; i < sentences.length; i++) {
+            sentenceTokens[i] = textProcessing.tokenize(sentences[i]);
+        }
+        time = addPhaseTime(PhaseTimer.TOKENIZE, time);
+        String[][] sentencePos = new String[sentences.length][];
+        for (int i = 0; i < sentences.length; i++) {
+            sentencePos[i] = textProcessing.posTagging(sentenceTokens[i]);
+        }
+        String[] tokens = concat(sentenceTokens);
+        String[] pos = concat(sentencePos);
+        time = addPhaseTime(PhaseTimer.TAG, time);
         String[] stems = new String[tokens.length];
         String[] lemmas = new String[tokens.length];
         for (int i = 0; i < tokens.length; i++) {
@@ -1221,7 +1589,9 @@ public class JIGSAW {
             String wnPos = Tag2Wn.getPos(pos[i]);
             lemmas[i] = wordNet.lemmatize(tokens[i], wnPos);
         }
+        time = addPhaseTime(PhaseTimer.LEMMATIZE, time);
         TokenGroup tg = this.getToken(tokens, pos, stems, lemmas, true);
+        addPhaseTime(PhaseTimer.LOOKUP, time);
         setSyn(tg);
         for (int j = 0; j < tg.size(); j++) {
             Token t = tg.get(j);
@@ -1241,7 +1611,9 @@ public class JIGSAW {
     }
 
     public TokenGroup mapText(String[] tokens) throws Exception {
+        long time = System.nanoTime();
         String[] pos = textProcessing.posTagging(tokens);
+        time = addPhaseTime(PhaseTimer.TAG, time);
         String[] stems = new String[tokens.length];
         String[] lemmas = new String[tokens.length];
         for (int i = 0; i < tokens.length; i++) {
@@ -1249,7 +1621,9 @@ public class JIGSAW {
             String wnPos = Tag2Wn.getPos(pos[i]);
             lemmas[i] = wordNet.lemmatize(tokens[i], wnPos);
         }
+        time = addPhaseTime(PhaseTimer.LEMMATIZE, time);
         TokenGroup tg = this.getToken(tokens, pos, stems, lemmas, true);
+        addPhaseTime(PhaseTimer.LOOKUP, time);
         setSyn(tg);
         for (int j = 0; j < tg.size(); j++) {
             Token t = tg.get(j);
@@ -1269,13 +1643,7 @@ public class JIGSAW {
     }
 
     public TokenGroup mapText(String[] tokens, String[] posTag) throws Exception {
-        String[] stems = new String[tokens.length];
-        String[] lemmas = new String[tokens.length];
-        for (int i = 0; i < tokens.length; i++) {
-            stems[i] = textProcessing.stem(tokens[i]);
-            lemmas[i] = wordNet.lemmatize(tokens[i], posTag[i]);
-        }
-        TokenGroup tg = this.getToken(tokens, posTag, stems, lemmas, false);
+        TokenGroup tg = getTokens(tokens, posTag);
         setSyn(tg);
         for (int j = 0; j < tg.size(); j++) {
             Token t = tg.get(j);
@@ -1294,7 +1662,53 @@ public class JIGSAW {
         return tg;
     }
 
-   
+    /**
+     * Build the token group of POS-tagged tokens with stems, lemmas and
+     * candidate synsets, without disambiguating it
+     */
+    TokenGroup getTokens(String[] tokens, String[] posTag) throws Exception {
+        long time = System.nanoTime();
+        String[] stems = new String[tokens.length];
+        String[] lemmas = new String[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            stems[i] = textProcessing.stem(tokens[i]);
+            lemmas[i] = wordNet.lemmatize(tokens[i], posTag[i]);
+        }
+        time = addPhaseTime(PhaseTimer.LEMMATIZE, time);
+        TokenGroup tg = this.getToken(tokens, posTag, stems, lemmas, false);
+        addPhaseTime(PhaseTimer.LOOKUP, time);
+        return tg;
+    }
+
+    /**
+     * Record the time elapsed since start in the phase metrics and in the
+     * phase timer, if it is set
+     *
+     * @return Current time
+     */
+    private long addPhaseTime(int phase, long start) {
+        long now = System.nanoTime();
+        Metrics.getInstance().recordPhase(phase, now - start);
+        if (phaseTimer != null) {
+            phaseTimer.add(phase, now - start);
+        }
+        return now;
+    }
+
+    public PhaseTimer getPhaseTimer() {
+        return phaseTimer;
+    }
+
+    /**
+     * Set the timer which collects the wall time of each phase, null disables
+     * the timing
+     *
+     * @param phaseTimer Phase timer
+     */
+    public void setPhaseTimer(PhaseTimer phaseTimer) {
+        this.phaseTimer = phaseTimer;
+    }
+
     public boolean isVerbose() {
         return verbose;
     }
@@ -1316,6 +1730,9 @@ public class JIGSAW {
     }
     
     public void setDepth(int depth) {
+        if (senseSignatures != null && senseSignatures.getDepth() != depth) {
+            Logger.getLogger(JIGSAW.class.getName()).log(Level.WARNING, "Signature file compiled with depth {0}, signatures are not used", senseSignatures.getDepth());
+        }
         this.depth = depth;
     }
 
@@ -1371,6 +1788,79 @@ public class JIGSAW {
         this.sigma = sigma;
     }
 
+    public int getNounWindow() {
+        return nounWindow;
+    }
+
+    public void setNounWindow(int nounWindow) {
+        this.nounWindow = nounWindow;
+    }
+
+    /**
+     * Log the hit/miss statistics of the WordNet caches
+     */
+    public void logCacheStatistics() {
+        if (wordNet.getDepthCache() != null) {
+            Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Distance cache: {0}", wordNet.getDepthCache());
+        }
+        if (wordNet.getCommonCache() != null) {
+            Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Common subsumer cache: {0}", wordNet.getCommonCache());
+        }
+        if (wordNet.getLookupCache() != null) {
+            Logger.getLogger(JIGSAW.class.getName()).log(Level.INFO, "Synset lookup cache: {0}", wordNet.getLookupCache());
+        }
+    }
+
+    /**
+     * Set the number of synsets whose gloss nouns are cached, 0 disables the
+     * cache
+     *
+     * @param glossCacheSize Cache size
+     */
+    public void setGlossCacheSize(int glossCacheSize) {
+        if (glossCacheSize > 0) {
+            glossNounCache = new ConcurrentLinkedHashMap.Builder<Long, TokenGroup>().maximumWeightedCapacity(glossCacheSize).build();
+        } else {
+            glossNounCache = null;
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of threads used to compute the noun pairs, 0 uses all
+     * the available processors
+     *
+     * @param threads Number of threads
+     */
+    public void setThreads(int threads) {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        this.threads = threads;
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+        }
+    }
+
+    /**
+     * Release the threads used to compute the noun pairs, the instance can
+     * still be used with one thread
+     */
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        threads = 1;
+    }
+
     public int getLookGram() {
         return lookGram;
     }
@@ -1395,6 +1885,10 @@ public class JIGSAW {
         this.posTagNotation = posTagNotation;
     }
 
+    private String synsetToString(int syn) {
+        return String.valueOf(syn);
+    }
+
     private String formatPosTagSynset(Token t) {
         if (t.getSyn() == null) {
             return "U";
@@ -1474,75 +1968,101 @@ public class JIGSAW {
                 usage();
                 System.exit(1);
             }
-            JIGSAW jigsaw = new JIGSAW(new File(props.getProperty("-cf")));
-            String type = props.getProperty("-m");
-            TokenGroup tg = null;
-            if (type != null && type.equals("tokenized")) {
-                File inputFile = new File(props.getProperty("-i"));
-                BufferedReader in = new BufferedReader(new FileReader(inputFile));
-                List<String> list = new ArrayList<String>();
-                while (in.ready()) {
-                    list.add(in.readLine());
-                }
-                in.close();
-                tg = jigsaw.mapText(list.toArray(new String[list.size()]));
-            } else if (type != null && type.equals("tagged")) {
-                File inputFile = new File(props.getProperty("-i"));
-                BufferedReader in = new BufferedReader(new FileReader(inputFile));
-                List<String> list = new ArrayList<String>();
-                List<String> tags = new ArrayList<String>();
-                while (in.ready()) {
-                    String line = in.readLine();
-                    int index = line.lastIndexOf(".");
-                    list.add(line.substring(0, index));
-                    tags.add(line.substring(index + 1, line.length()));
-                }
-                in.close();
-                tg = jigsaw.mapText(list.toArray(new String[list.size()]), tags.toArray(new String[tags.size()]));
-            } else {
-                File inputFile = new File(props.getProperty("-i"));
-                BufferedReader in = new BufferedReader(new FileReader(inputFile));
-                StringBuilder sb = new StringBuilder();
-                while (in.ready()) {
-                    sb.append(in.readLine()).append("\n");
-                }
-                in.close();
-                tg = jigsaw.mapText(sb.toString());
-            }
-            if (tg != null) {
-                if (props.containsKey("-o")) {
-                    BufferedWriter out = new BufferedWriter(new FileWriter(props.getProperty("-o")));
-                    for (int i = 0; i < tg.size(); i++) {
-                        out.append(tg.get(i).getToken()).append(" ");
-                        out.append(tg.get(i).getStem()).append(" ");
-                        out.append(tg.get(i).getPosTag()).append(" ");
-                        out.append(tg.get(i).getLemma()).append(" ");
-                        out.append(tg.get(i).getSyn());
-                        out.newLine();
-                    }
-                    out.close();
-                } else {
-                    System.out.println();
-                    for (int i = 0; i < tg.size(); i++) {
-                        System.out.print(tg.get(i).getToken());
-                        System.out.print(" ");
-                        System.out.print(tg.get(i).getStem());
-                        System.out.print(" ");
-                        System.out.print(tg.get(i).getPosTag());
-                        System.out.print(" ");
-                        System.out.print(tg.get(i).getLemma());
-                        System.out.print(" ");
-                        System.out.print(tg.get(i).getSyn());
-                        System.out.println();
+            final JIGSAW jigsaw = new JIGSAW(new File(props.getProperty("-cf")));
+            final int format = ChunkReader.getFormat(props.getProperty("-m"));
+            final int chunkSize = Integer.parseInt(props.getProperty("-c", String.valueOf(DEFAULT_CHUNK_SIZE)));
+            String input = props.getProperty("-i");
+            if (BatchRunner.isBatch(input)) {
+                List<File> inputs = BatchRunner.listInputs(input);
+                File outputDir = props.containsKey("-o") ? new File(props.getProperty("-o")) : null;
+                int workers = Integer.parseInt(props.getProperty("-t", "0"));
+                int failed = BatchRunner.run(inputs, outputDir, workers, new BatchRunner.DocumentProcessor() {
+
+                    @Override
+                    public void process(File inputFile, File outputFile) throws Exception {
+                        ChunkReader reader = new ChunkReader(ChunkReader.open(inputFile.getPath()), format, chunkSize);
+                        try {
+                            BufferedWriter out = new BufferedWriter(new FileWriter(outputFile));
+                            try {
+                                processChunks(jigsaw, reader, out);
+                            } finally {
+                                out.close();
+                            }
+                        } finally {
+                            reader.close();
+                        }
                     }
-                    System.out.println();
+                });
+                jigsaw.logCacheStatistics();
+                jigsaw.close();
+                if (failed > 0) {
+                    Logger.getLogger(JIGSAW.class.getName()).log(Level.SEVERE, "{0} documents have not been processed", failed);
+                    System.exit(1);
                 }
+                return;
+            }
+            ChunkReader reader = new ChunkReader(ChunkReader.open(input), format, chunkSize);
+            if (props.containsKey("-o")) {
+                BufferedWriter out = new BufferedWriter(new FileWriter(props.getProperty("-o")));
+                processChunks(jigsaw, reader, out);
+                out.close();
+            } else {
+                BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out));
+                out.newLine();
+                processChunks(jigsaw, reader, out);
+                out.newLine();
+                out.flush();
             }
+            reader.close();
+            jigsaw.logCacheStatistics();
+            jigsaw.close();
         } catch (Exception ex) {
             Logger.getLogger(JIGSAW.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
 
+    /**
+     * Disambiguate the input chunk by chunk, the output of each chunk is
+     * written as soon as the chunk is disambiguated
+     *
+     * @param jigsaw JIGSAW
+     * @param reader Input
+     * @param out Output
+     * @throws Exception Exception
+     */
+    private static void processChunks(JIGSAW jigsaw, ChunkReader reader, BufferedWriter out) throws Exception {
+        while (reader.next()) {
+            TokenGroup tg;
+            if (reader.getFormat() == ChunkReader.TOKENIZED) {
+                tg = jigsaw.mapText(reader.getTokens());
+            } else if (reader.getFormat() == ChunkReader.TAGGED) {
+                tg = jigsaw.mapText(reader.getTokens(), reader.getTags());
+            } else {
+                tg = jigsaw.mapText(reader.getText());
+            }
+            write(tg, out);
+            out.flush();
+        }
+    }
+
+    /**
+     * Write the tokens in the output format: token stem pos-tag lemma sense
+     *
+     * @param tg Tokens
+     * @param out Writer
+     * @throws IOException Exception
+     */
+    private static void write(TokenGroup tg, BufferedWriter out) throws IOException {
+        for (int i = 0; i < tg.size(); i++) {
+            out.append(tg.get(i).getToken()).append(" ");
+            out.append(tg.get(i).getStem()).append(" ");
+            out.append(tg.get(i).getPosTag()).append(" ");
+            out.append(tg.get(i).getLemma()).append(" ");
+            out.append(tg.get(i).getSyn());
+            out.newLine();
+        }
+    }
+
     private static void usage() {
         System.out.println("JIGSAW algorithm for Word Sense Disambiguation - ver. 1.00b");
         System.out.println("GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007");
@@ -1550,5 +2070,9 @@ public class JIGSAW {
         System.out.println("Usage: -cf <configuration file> -i <input file> -o <output file> -m tokenized|tagged");
         System.out.println("\t-o is optional, if it's missing JIGSAW uses standard output");
         System.out.println("\t-m is optional, tokenized one token per line, tagged one token with pos-tag per line, otherwise JIGSAW reads full-text");
+        System.out.println("\t-i can be a directory, a file list (@file) or a glob (dir/*.txt): the documents are processed in batch mode, -o is the output directory");
+        System.out.println("\t-i - reads the standard input, files with extension .gz are decompressed");
+        System.out.println("\t-c is optional, chunk size in lines (default " + DEFAULT_CHUNK_SIZE + ", the whole input at once): the input is disambiguated in chunks which end on blank lines or on the first sentence end after -c lines");
+        System.out.println("\t-t is optional, number of documents processed concurrently in batch mode (default: all the available processors)");
     }
 }
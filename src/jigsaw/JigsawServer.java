@@ -0,0 +1,420 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.googlecode.concurrentlinkedhashmap.EvictionListener;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jigsaw.data.Token;
+import jigsaw.data.TokenGroup;
+import jigsaw.utils.CommandUtils;
+
+/**
+ * HTTP server which keeps the knowledge base loaded and disambiguates the
+ * text sent by POST to /wsd. The response is a JSON object with the tokens
+ * and their senses. Query parameters:
+ * <ul>
+ * <li>format: text (default), tokenized (one token per line) or tagged (one
+ * token per line in the format word.postag)</li>
+ * <li>radius, depth, shortOutput: override the wsd.* properties for the
+ * request</li>
+ * </ul>
+ * Requests are processed by a bounded pool of workers, when the workers are
+ * busy and the queue is full the request is rejected with 503.
+ *
+ * @author Basile Pierpaolo
+ */
+public class JigsawServer {
+
+    private static final int MAX_ENGINES = 16;
+    private static final int MAX_REQUEST_SIZE = 10 * 1024 * 1024;
+    private final KnowledgeBase knowledgeBase;
+    private final Properties props;
+    private final JIGSAW defaultEngine;
+    private final ConcurrentMap<String, JIGSAW> engines;
+    private final ThreadPoolExecutor executor;
+    private HttpServer server;
+
+    /**
+     * Creates a new server
+     *
+     * @param props Configuration properties
+     * @param workers Number of workers
+     * @param queueSize Number of requests which can wait for a worker
+     * @throws Exception Exception
+     */
+    public JigsawServer(Properties props, int workers, int queueSize) throws Exception {
+        this.props = props;
+        this.knowledgeBase = new KnowledgeBase(props);
+        this.defaultEngine = new JIGSAW(props, knowledgeBase);
+        this.engines = new ConcurrentLinkedHashMap.Builder<String, JIGSAW>().maximumWeightedCapacity(MAX_ENGINES).listener(new EvictionListener<String, JIGSAW>() {
+
+            @Override
+            public void onEviction(String key, JIGSAW engine) {
+                engine.close();
+            }
+        }).build();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize));
+    }
+
+    /**
+     * Start the server
+     *
+     * @param port Port
+     * @throws IOException Exception
+     */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/wsd", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                try {
+                    executor.execute(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            process(exchange);
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    send(exchange, 503, "{\"error\":\"server overloaded\"}");
+                }
+            }
+        });
+        server.createContext("/health", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                send(exchange, 200, "{\"status\":\"ok\",\"active\":" + executor.getActiveCount() + ",\"queued\":" + executor.getQueue().size() + "}");
+            }
+        });
+        server.start();
+        Logger.getLogger(JigsawServer.class.getName()).log(Level.INFO, "JIGSAW server listening on port {0}", port);
+    }
+
+    /**
+     * Stop the server, the requests in progress are completed
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(60, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        for (JIGSAW engine : engines.values()) {
+            engine.close();
+        }
+        engines.clear();
+        defaultEngine.close();
+    }
+
+    private void process(HttpExchange exchange) {
+        try {
+            if (!exchange.getRequestMethod().equalsIgnoreCase("POST")) {
+                send(exchange, 405, "{\"error\":\"POST expected\"}");
+                return;
+            }
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            String body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                send(exchange, 413, "{\"error\":\"request too large\"}");
+                return;
+            }
+            JIGSAW jigsaw = getEngine(params);
+            String format = params.get("format");
+            TokenGroup tg;
+            if (format == null || format.equals("text")) {
+                tg = jigsaw.mapText(body);
+            } else if (format.equals("tokenized")) {
+                tg = jigsaw.mapText(getLines(body).toArray(new String[0]));
+            } else if (format.equals("tagged")) {
+                List<String> lines = getLines(body);
+                String[] tokens = new String[lines.size()];
+                String[] tags = new String[lines.size()];
+                for (int i = 0; i < tokens.length; i++) {
+                    String line = lines.get(i);
+                    int index = line.lastIndexOf(".");
+                    if (index <= 0) {
+                        throw new IllegalArgumentException("Token without pos-tag: " + line);
+                    }
+                    tokens[i] = line.substring(0, index);
+                    tags[i] = line.substring(index + 1);
+                }
+                tg = jigsaw.mapText(tokens, tags);
+            } else {
+                throw new IllegalArgumentException("Unknown format: " + format);
+            }
+            send(exchange, 200, toJson(tg));
+        } catch (IllegalArgumentException ex) {
+            send(exchange, 400, "{\"error\":" + quote(ex.getMessage()) + "}");
+        } catch (Exception ex) {
+            Logger.getLogger(JigsawServer.class.getName()).log(Level.SEVERE, "Error to process request", ex);
+            send(exchange, 500, "{\"error\":" + quote(String.valueOf(ex.getMessage())) + "}");
+        }
+    }
+
+    /**
+     * Return the engine for the wsd.* overrides of the request. The engines
+     * share the knowledge base, engines with overrides do not use the noun
+     * thread pool since the requests are already processed in parallel.
+     */
+    private JIGSAW getEngine(Map<String, String> params) {
+        String radius = params.get("radius");
+        String depth = params.get("depth");
+        String shortOutput = params.get("shortOutput");
+        if (radius == null && depth == null && shortOutput == null) {
+            return defaultEngine;
+        }
+        if (radius != null) {
+            checkRange("radius", radius, 1, 100);
+        }
+        if (depth != null) {
+            checkRange("depth", depth, 1, jigsaw.wn.WordNet.MAX_DEPTH);
+        }
+        if (shortOutput != null && !shortOutput.equals("true") && !shortOutput.equals("false")) {
+            throw new IllegalArgumentException("shortOutput must be true or false");
+        }
+        String key = radius + "/" + depth + "/" + shortOutput;
+        JIGSAW engine = engines.get(key);
+        if (engine == null) {
+            Properties config = new Properties();
+            config.putAll(props);
+            if (radius != null) {
+                config.setProperty("wsd.radius", radius);
+            }
+            if (depth != null) {
+                config.setProperty("wsd.depth", depth);
+            }
+            if (shortOutput != null) {
+                config.setProperty("wsd.shortOutput", shortOutput);
+            }
+            config.setProperty("wsd.threads", "1");
+            engine = new JIGSAW(config, knowledgeBase);
+            JIGSAW other = engines.putIfAbsent(key, engine);
+            if (other != null) {
+                engine.close();
+                engine = other;
+            }
+        }
+        return engine;
+    }
+
+    private static void checkRange(String name, String value, int min, int max) {
+        try {
+            int v = Integer.parseInt(value);
+            if (v < min || v > max) {
+                throw new IllegalArgumentException(name + " must be between " + min + " and " + max);
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws IOException {
+        Map<String, String> params = new HashMap<String, String>();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                int index = param.indexOf('=');
+                if (index > 0) {
+                    params.put(URLDecoder.decode(param.substring(0, index), "UTF-8"), URLDecoder.decode(param.substring(index + 1), "UTF-8"));
+                }
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Read the request body, return null if it is larger than
+     * MAX_REQUEST_SIZE
+     */
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+            if (out.size() > MAX_REQUEST_SIZE) {
+                in.close();
+                return null;
+            }
+        }
+        in.close();
+        return out.toString("UTF-8");
+    }
+
+    private static List<String> getLines(String body) {
+        List<String> lines = new ArrayList<String>();
+        for (String line : body.split("\r?\n")) {
+            if (line.trim().length() > 0) {
+                lines.add(line.trim());
+            }
+        }
+        return lines;
+    }
+
+    private static String toJson(TokenGroup tg) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"tokens\":[");
+        for (int i = 0; i < tg.size(); i++) {
+            Token t = tg.get(i);
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append("{\"token\":").append(quote(t.getToken()));
+            sb.append(",\"stem\":").append(quote(t.getStem()));
+            sb.append(",\"pos\":").append(quote(t.getPosTag()));
+            sb.append(",\"lemma\":").append(quote(t.getLemma()));
+            sb.append(",\"sense\":").append(quote(t.getSyn()));
+            sb.append("}");
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    private static String quote(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) {
+        try {
+            byte[] bytes = body.getBytes("UTF-8");
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(bytes);
+            out.close();
+        } catch (IOException ex) {
+            Logger.getLogger(JigsawServer.class.getName()).log(Level.WARNING, "Error to send response", ex);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            Properties cmd = null;
+            try {
+                cmd = CommandUtils.cmd(args);
+                if (!cmd.containsKey("-cf")) {
+                    throw new Exception("-cf <configuration file> is expected");
+                }
+            } catch (Exception ex) {
+                Logger.getLogger(JigsawServer.class.getName()).log(Level.SEVERE, "Parameters are wrong", ex);
+                usage();
+                System.exit(1);
+            }
+            Properties props = new Properties();
+            FileReader reader = new FileReader(new File(cmd.getProperty("-cf")));
+            props.load(reader);
+            reader.close();
+            int workers = Integer.parseInt(cmd.getProperty("-t", String.valueOf(Runtime.getRuntime().availableProcessors())));
+            int queueSize = Integer.parseInt(cmd.getProperty("-q", "100"));
+            JigsawServer jigsawServer = new JigsawServer(props, workers, queueSize);
+            jigsawServer.start(Integer.parseInt(cmd.getProperty("-p", "8080")));
+        } catch (Exception ex) {
+            Logger.getLogger(JigsawServer.class.getName()).log(Level.SEVERE, null, ex);
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.out.println("JIGSAW HTTP server");
+        System.out.println("Usage: -cf <configuration file> -p <port> -t <workers> -q <queue size>");
+        System.out.println("\t-p is optional, default 8080");
+        System.out.println("\t-t is optional, number of requests processed concurrently (default: all the available processors)");
+        System.out.println("\t-q is optional, number of requests waiting for a worker before the server answers 503 (default 100)");
+        System.out.println("POST text to http://host:port/wsd?format=text|tokenized|tagged&radius=<n>&depth=<n>&shortOutput=true|false");
+    }
+}
@@ -0,0 +1,147 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jigsaw.data.SenseSignatures;
+import jigsaw.nlp.SimpleTextProcessing;
+import jigsaw.utils.Metrics;
+import jigsaw.wn.WordNet;
+
+/**
+ * Knowledge base used by JIGSAW: WordNet (with the hypernym index and the
+ * synset pair caches), the NLP models and the compiled sense signatures. The
+ * knowledge base is built once from the wn.*, nlp.* and wsd.signatureFile
+ * properties and it is never modified by the disambiguation, so it can be
+ * shared by any number of JIGSAW instances, also with different wsd.*
+ * parameters, and by concurrent threads.
+ *
+ * @author Basile Pierpaolo
+ */
+public final class KnowledgeBase {
+
+    private final WordNet wordNet;
+    private final SimpleTextProcessing textProcessing;
+    private final SenseSignatures senseSignatures;
+
+    /**
+     * Build the knowledge base
+     *
+     * @param props Configuration properties
+     * @throws Exception Exception
+     */
+    public KnowledgeBase(Properties props) throws Exception {
+        Logger.getLogger(KnowledgeBase.class.getName()).log(Level.INFO, "Load knowledge base...");
+        wordNet = new WordNet();
+        wordNet.init(new File(props.getProperty("wn.configFile")));
+        wordNet.setCacheSize(Integer.parseInt(props.getProperty("wn.cacheSize", "0")));
+        wordNet.setLookupCacheSize(Integer.parseInt(props.getProperty("wn.lookupCacheSize", "0")));
+        if (props.getProperty("wn.hypernymIndex") != null) {
+            wordNet.initHypernymIndex(new File(props.getProperty("wn.hypernymIndex")));
+        }
+        SenseSignatures signatures = null;
+        if (props.getProperty("wsd.signatureFile") != null) {
+            File signatureFile = new File(props.getProperty("wsd.signatureFile"));
+            if (signatureFile.exists()) {
+                try {
+                    signatures = SenseSignatures.open(signatureFile, wordNet.getFingerprint());
+                } catch (IOException ex) {
+                    Logger.getLogger(KnowledgeBase.class.getName()).log(Level.WARNING, "Signature file not valid, signatures are not used: " + signatureFile, ex);
+                }
+            } else {
+                Logger.getLogger(KnowledgeBase.class.getName()).log(Level.WARNING, "Signature file not found: {0}", signatureFile);
+            }
+        }
+        senseSignatures = signatures;
+        textProcessing = new SimpleTextProcessing(new File(props.getProperty("nlp.tokenModel")), new File(props.getProperty("nlp.posTagModel")), new File(props.getProperty("nlp.stopWordFile")), getSentenceModel(props));
+        Metrics.getInstance().setWordNet(wordNet);
+        if (Boolean.valueOf(props.getProperty("wsd.jmx", "true")).booleanValue()) {
+            Metrics.getInstance().register();
+        }
+    }
+
+    /**
+     * Build the knowledge base from a configuration file
+     *
+     * @param configFile Configuration file
+     * @return Knowledge base
+     * @throws Exception Exception
+     */
+    public static KnowledgeBase load(File configFile) throws Exception {
+        Properties props = new Properties();
+        FileReader reader = new FileReader(configFile);
+        props.load(reader);
+        reader.close();
+        return new KnowledgeBase(props);
+    }
+
+    /**
+     * Return the OpenNLP sentence model set by nlp.sentenceModel, null if the
+     * rule-based sentence detector must be used
+     */
+    static File getSentenceModel(Properties props) {
+        if (props.getProperty("nlp.sentenceModel") == null) {
+            return null;
+        }
+        File sentenceModel = new File(props.getProperty("nlp.sentenceModel"));
+        if (!sentenceModel.exists()) {
+            Logger.getLogger(KnowledgeBase.class.getName()).log(Level.WARNING, "Sentence model not found: {0}, the rule-based sentence detector is used", sentenceModel);
+            return null;
+        }
+        return sentenceModel;
+    }
+
+    public WordNet getWordNet() {
+        return wordNet;
+    }
+
+    public SimpleTextProcessing getTextProcessing() {
+        return textProcessing;
+    }
+
+    /**
+     * @return Compiled sense signatures, null if they are not available
+     */
+    public SenseSignatures getSenseSignatures() {
+        return senseSignatures;
+    }
+}
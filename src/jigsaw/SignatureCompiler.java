@@ -0,0 +1,87 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw;
+
+import java.io.File;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jigsaw.data.SenseSignatures;
+import jigsaw.utils.CommandUtils;
+
+/**
+ * Compile the signatures of adjectives and adverbs used by JIGSAW in a binary
+ * file. The file must be compiled with the same WordNet and depth used by
+ * JIGSAW and it is loaded by the property wsd.signatureFile
+ *
+ * @author Basile Pierpaolo
+ */
+public class SignatureCompiler {
+
+    private static final String[] POS_TAGS = new String[]{"a", "r"};
+
+    public static void main(String[] args) {
+        try {
+            Properties props = null;
+            try {
+                props = CommandUtils.cmd(args);
+                if (!(props.containsKey("-cf") && props.containsKey("-o"))) {
+                    throw new Exception("-cf <configuration file> and -o <output file> are expected");
+                }
+            } catch (Exception ex) {
+                Logger.getLogger(SignatureCompiler.class.getName()).log(Level.SEVERE, "Parameters are wrong", ex);
+                System.out.println("Usage: -cf <configuration file> -o <output file>");
+                System.exit(1);
+            }
+            JIGSAW jigsaw = new JIGSAW(new File(props.getProperty("-cf")));
+            int[][] offsets = new int[POS_TAGS.length][];
+            String[][][] signatures = new String[POS_TAGS.length][][];
+            for (int k = 0; k < POS_TAGS.length; k++) {
+                offsets[k] = jigsaw.getWordNet().getAllOffsets(POS_TAGS[k]);
+                signatures[k] = new String[offsets[k].length][];
+                for (int i = 0; i < offsets[k].length; i++) {
+                    signatures[k][i] = jigsaw.getSignatureTerms(offsets[k][i], POS_TAGS[k]);
+                }
+                Logger.getLogger(SignatureCompiler.class.getName()).log(Level.INFO, "Compiled {0} signatures, POS-tag: {1}", new Object[]{offsets[k].length, POS_TAGS[k]});
+            }
+            SenseSignatures.write(new File(props.getProperty("-o")), jigsaw.getWordNet().getFingerprint(), jigsaw.getDepth(), POS_TAGS, offsets, signatures);
+            jigsaw.close();
+        } catch (Exception ex) {
+            Logger.getLogger(SignatureCompiler.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.data;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import jigsaw.utils.AtomicFile;
+
+/**
+ * Sense signatures compiled in a binary file. A signature is the list of the
+ * distinct stemmed terms of the sense (gloss, words and related synsets) in
+ * order of first occurrence, each term is stored as a term id. The file is
+ * memory mapped and it is never loaded on the heap.
+ *
+ * File format (big-endian):
+ * <pre>
+ * magic, version, dictionary fingerprint, depth, number of terms, number of POS-tags
+ * term start [number of terms + 1], term bytes (UTF-8 sorted by bytes), padding to 4 bytes
+ * for each POS-tag: POS-tag char, number of synsets, offsets [number of synsets],
+ * signature start [number of synsets + 1], term ids
+ * CRC32 of the previous bytes
+ * </pre>
+ *
+ * @author Basile Pierpaolo
+ */
+public class SenseSignatures implements Vocabulary {
+
+    private static final int MAGIC = 0x4a534947;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 28;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private final MappedByteBuffer buffer;
+    private final int depth;
+    private final int termCount;
+    private final int termStartPos;
+    private final int termBytesPos;
+    private final Map<String, Section> sections = new HashMap<String, Section>();
+
+    private SenseSignatures(MappedByteBuffer buffer, long fingerprint) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < 8 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a signature file");
+        }
+        int end = buffer.limit() - 8;
+        if (end < HEADER_SIZE + 4 || buffer.getLong(end) != checksum(buffer, end)) {
+            throw new IOException("Signature file corrupted");
+        }
+        if (buffer.getLong(8) != fingerprint) {
+            throw new IOException("Signature file compiled from a different dictionary");
+        }
+        depth = buffer.getInt(16);
+        termCount = buffer.getInt(20);
+        int posCount = buffer.getInt(24);
+        if (termCount < 0 || posCount < 0) {
+            throw new IOException("Signature file corrupted");
+        }
+        termStartPos = HEADER_SIZE;
+        long pos = checkBounds(termStartPos + (termCount + 1L) * 4, end);
+        termBytesPos = (int) pos;
+        pos = checkBounds(pos + buffer.getInt(termStartPos + termCount * 4), end);
+        pos = (pos + 3) & ~3;
+        for (int i = 0; i < posCount; i++) {
+            Section section = new Section();
+            checkBounds(pos + 8, end);
+            String posTag = String.valueOf((char) buffer.getInt((int) pos));
+            section.size = buffer.getInt((int) pos + 4);
+            if (section.size < 0) {
+                throw new IOException("Signature file corrupted");
+            }
+            section.offsetPos = (int) pos + 8;
+            section.startPos = (int) checkBounds(section.offsetPos + section.size * 4L, end);
+            section.idPos = (int) checkBounds(section.startPos + (section.size + 1L) * 4, end);
+            pos = checkBounds(section.idPos + buffer.getInt(section.startPos + section.size * 4) * 4L, end);
+            sections.put(posTag, section);
+        }
+        if (pos != end) {
+            throw new IOException("Signature file corrupted");
+        }
+    }
+
+    private static long checkBounds(long pos, int end) throws IOException {
+        if (pos < 0 || pos > end) {
+            throw new IOException("Signature file corrupted");
+        }
+        return pos;
+    }
+
+    private static long checksum(MappedByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        byte[] block = new byte[65536];
+        for (int pos = 0; pos < length; pos += block.length) {
+            int n = Math.min(block.length, length - pos);
+            for (int i = 0; i < n; i++) {
+                block[i] = buffer.get(pos + i);
+            }
+            crc.update(block, 0, n);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Map the signature file
+     *
+     * @param file Signature file
+     * @param fingerprint Fingerprint of the dictionary, see
+     * {@link jigsaw.wn.WordNet#getFingerprint()}
+     * @return The signatures
+     * @throws IOException If the file is not valid or it is compiled from a
+     * different dictionary
+     */
+    public static SenseSignatures open(File file, long fingerprint) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Signature file too large");
+            }
+            return new SenseSignatures(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), fingerprint);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @return The depth used to collect the related synsets
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getTermCount() {
+        return termCount;
+    }
+
+    /**
+     * Return the id of the term
+     *
+     * @param term Term
+     * @return Term id, -1 if the term is not in the file
+     */
+    public int getTermId(String term) {
+        byte[] key = term.getBytes(UTF8);
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = compareTerm(middle, key);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String getTerm(int id) {
+        int start = buffer.getInt(termStartPos + id * 4);
+        int end = buffer.getInt(termStartPos + (id + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(termBytesPos + start + i);
+        }
+        return new String(bytes, UTF8);
+    }
+
+    /**
+     * Return the signature of the synset
+     *
+     * @param offset Synset offset
+     * @param pos POS-tag
+     * @return Term ids, null if the synset is not in the file
+     */
+    public int[] getSignature(int offset, String pos) {
+        Section section = sections.get(pos);
+        if (section == null) {
+            return null;
+        }
+        int low = 0;
+        int high = section.size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = buffer.getInt(section.offsetPos + middle * 4);
+            if (value < offset) {
+                low = middle + 1;
+            } else if (value > offset) {
+                high = middle - 1;
+            } else {
+                int start = buffer.getInt(section.startPos + middle * 4);
+                int end = buffer.getInt(section.startPos + (middle + 1) * 4);
+                int[] ids = new int[end - start];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = buffer.getInt(section.idPos + (start + i) * 4);
+                }
+                return ids;
+            }
+        }
+        return null;
+    }
+
+    private int compareTerm(int id, byte[] key) {
+        int start = termBytesPos + buffer.getInt(termStartPos + id * 4);
+        int length = buffer.getInt(termStartPos + (id + 1) * 4) - buffer.getInt(termStartPos + id * 4);
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            int b1 = buffer.get(start + i) & 0xff;
+            int b2 = key[i] & 0xff;
+            if (b1 != b2) {
+                return b1 - b2;
+            }
+        }
+        return length - key.length;
+    }
+
+    /**
+     * Write the signatures
+     *
+     * @param file Signature file
+     * @param fingerprint Fingerprint of the dictionary
+     * @param depth Depth used to collect the related synsets
+     * @param posTags POS-tags
+     * @param offsets Synset offsets for each POS-tag, sorted
+     * @param signatures Signature terms for each POS-tag and synset
+     * @throws IOException Exception
+     */
+    public static void write(File file, long fingerprint, int depth, String[] posTags, int[][] offsets, String[][][] signatures) throws IOException {
+        Map<String, byte[]> termMap = new HashMap<String, byte[]>();
+        for (int i = 0; i < signatures.length; i++) {
+            for (int j = 0; j < signatures[i].length; j++) {
+                for (int k = 0; k < signatures[i][j].length; k++) {
+                    if (!termMap.containsKey(signatures[i][j][k])) {
+                        termMap.put(signatures[i][j][k], signatures[i][j][k].getBytes(UTF8));
+                    }
+                }
+            }
+        }
+        byte[][] terms = termMap.values().toArray(new byte[termMap.size()][]);
+        Arrays.sort(terms, new Comparator<byte[]>() {
+
+            @Override
+            public int compare(byte[] o1, byte[] o2) {
+                int n = Math.min(o1.length, o2.length);
+                for (int i = 0; i < n; i++) {
+                    int b1 = o1[i] & 0xff;
+                    int b2 = o2[i] & 0xff;
+                    if (b1 != b2) {
+                        return b1 - b2;
+                    }
+                }
+                return o1.length - o2.length;
+            }
+        });
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        for (int i = 0; i < terms.length; i++) {
+            ids.put(new String(terms[i], UTF8), i);
+        }
+        File tmp = AtomicFile.temporary(file);
+        CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)), new CRC32());
+        DataOutputStream out = new DataOutputStream(checked);
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(depth);
+            out.writeInt(terms.length);
+            out.writeInt(posTags.length);
+            int start = 0;
+            for (int i = 0; i < terms.length; i++) {
+                out.writeInt(start);
+                start += terms[i].length;
+            }
+            out.writeInt(start);
+            for (int i = 0; i < terms.length; i++) {
+                out.write(terms[i]);
+            }
+            while (out.size() % 4 != 0) {
+                out.writeByte(0);
+            }
+            for (int i = 0; i < posTags.length; i++) {
+                out.writeInt(posTags[i].charAt(0));
+                out.writeInt(offsets[i].length);
+                for (int j = 0; j < offsets[i].length; j++) {
+                    out.writeInt(offsets[i][j]);
+                }
+                start = 0;
+                for (int j = 0; j < signatures[i].length; j++) {
+                    out.writeInt(start);
+                    start += signatures[i][j].length;
+                }
+                out.writeInt(start);
+                for (int j = 0; j < signatures[i].length; j++) {
+                    for (int k = 0; k < signatures[i][j].length; k++) {
+                        out.writeInt(ids.get(signatures[i][j][k]));
+                    }
+                }
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.close();
+            AtomicFile.commit(file);
+        } catch (IOException ex) {
+            out.close();
+            AtomicFile.discard(file);
+            throw ex;
+        }
+    }
+
+    private static class Section {
+
+        private int size;
+        private int offsetPos;
+        private int startPos;
+        private int idPos;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.data;
+
+import java.util.Arrays;
+
+/**
+ * Bag of terms, each term is represented by an int id. The bag stores the
+ * distinct ids in a sorted array with their counts.
+ *
+ * @author Basile Pierpaolo
+ */
+public class TermBag {
+
+    private final int[] terms;
+    private final int[] counts;
+    private final int size;
+
+    /**
+     * Creates a new bag
+     *
+     * @param ids Term ids, negative ids (unknown terms) are counted in the
+     * bag size but they are not stored
+     */
+    public TermBag(int[] ids) {
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] >= 0 && (i == 0 || sorted[i] != sorted[i - 1])) {
+                distinct++;
+            }
+        }
+        terms = new int[distinct];
+        counts = new int[distinct];
+        int k = -1;
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] >= 0) {
+                if (k == -1 || terms[k] != sorted[i]) {
+                    k++;
+                    terms[k] = sorted[i];
+                }
+                counts[k]++;
+            }
+        }
+        size = ids.length;
+    }
+
+    /**
+     * Return the number of occurrences of the term
+     *
+     * @param term Term id
+     * @return Number of occurrences, 0 if the term is not in the bag
+     */
+    public int getCount(int term) {
+        int index = Arrays.binarySearch(terms, term);
+        if (index < 0) {
+            return 0;
+        }
+        return counts[index];
+    }
+
+    /**
+     * @return Number of terms in the bag (including repeated and unknown terms)
+     */
+    public int size() {
+        return size;
+    }
+}
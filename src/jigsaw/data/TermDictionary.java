@@ -0,0 +1,119 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory dictionary which interns terms and assigns them consecutive int
+ * ids. The dictionary is thread safe.
+ *
+ * @author Basile Pierpaolo
+ */
+public class TermDictionary implements Vocabulary {
+
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+    private final List<String> terms = new ArrayList<String>();
+
+    /**
+     * Return the id of the term, the term is added if it is not in the
+     * dictionary
+     *
+     * @param term Term
+     * @return Term id
+     */
+    public synchronized int getId(String term) {
+        Integer id = ids.get(term);
+        if (id == null) {
+            id = terms.size();
+            ids.put(term, id);
+            terms.add(term);
+        }
+        return id;
+    }
+
+    /**
+     * Return the ids of the tokens of the text. The text is split on spaces as
+     * String.split("[ ]+") does: a leading space produces an empty token and
+     * trailing spaces are ignored.
+     *
+     * @param text Text
+     * @return Token ids
+     */
+    public synchronized int[] getIds(String text) {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end == 0) {
+            return text.length() == 0 ? new int[]{getId("")} : new int[0];
+        }
+        int n = 1;
+        for (int i = 0; i < end; i++) {
+            if (text.charAt(i) == ' ' && (i == 0 || text.charAt(i - 1) != ' ')) {
+                n++;
+            }
+        }
+        int[] result = new int[n];
+        int k = 0;
+        int start = 0;
+        for (int i = 0; i <= end; i++) {
+            if (i == end || text.charAt(i) == ' ') {
+                if (i == end || i == 0 || text.charAt(i - 1) != ' ') {
+                    result[k++] = getId(text.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized String getTerm(int id) {
+        return terms.get(id);
+    }
+
+    /**
+     * @return Number of terms in the dictionary
+     */
+    public synchronized int size() {
+        return terms.size();
+    }
+}
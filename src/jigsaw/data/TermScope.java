@@ -0,0 +1,148 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.data;
+
+import java.util.Arrays;
+
+/**
+ * Term ids used to compare a target word with its context: the ids are
+ * assigned by a {@link TermDictionary} which lives as long as the scope, so
+ * the memory does not grow with the number of processed documents. A scope
+ * is used by one thread.
+ *
+ * @author Basile Pierpaolo
+ */
+public class TermScope implements Vocabulary {
+
+    /**
+     * Stemmer used to compute the stem ids
+     */
+    public interface Stemmer {
+
+        /**
+         * @param term Term
+         * @return Stem of the term
+         */
+        public String stem(String term);
+    }
+    private final TermDictionary dictionary = new TermDictionary();
+    private final Stemmer stemmer;
+    private int[] stems = new int[0];
+    private int[] marks = new int[0];
+    private int mark = 0;
+
+    /**
+     * @param stemmer Stemmer
+     */
+    public TermScope(Stemmer stemmer) {
+        this.stemmer = stemmer;
+    }
+
+    /**
+     * Return the id of the term, the term is added if it is not in the scope
+     *
+     * @param term Term
+     * @return Term id
+     */
+    public int getId(String term) {
+        return dictionary.getId(term);
+    }
+
+    @Override
+    public String getTerm(int id) {
+        return dictionary.getTerm(id);
+    }
+
+    /**
+     * Return the ids of the tokens of the text (see
+     * {@link TermDictionary#getIds(String)}), the tokens are optionally
+     * stemmed
+     *
+     * @param text Text
+     * @param stem true to return the ids of the stems
+     * @return Token ids
+     */
+    public int[] getIds(String text, boolean stem) {
+        int[] ids = dictionary.getIds(text);
+        if (stem) {
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = getStemId(ids[i]);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Return the ids of the distinct stems of the text in order of first
+     * occurrence
+     *
+     * @param text Text
+     * @return Stem ids
+     */
+    public int[] getDistinctStemIds(String text) {
+        int[] ids = getIds(text, true);
+        if (marks.length < dictionary.size()) {
+            marks = Arrays.copyOf(marks, Math.max(dictionary.size(), marks.length * 2));
+        }
+        mark++;
+        int n = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (marks[ids[i]] != mark) {
+                marks[ids[i]] = mark;
+                ids[n++] = ids[i];
+            }
+        }
+        return n == ids.length ? ids : Arrays.copyOf(ids, n);
+    }
+
+    /**
+     * Return the id of the stem of the term, stems are computed once for each
+     * term of the scope
+     */
+    private int getStemId(int term) {
+        if (term >= stems.length) {
+            int[] grown = new int[Math.max(term + 1, stems.length * 2)];
+            Arrays.fill(grown, stems.length, grown.length, -1);
+            System.arraycopy(stems, 0, grown, 0, stems.length);
+            stems = grown;
+        }
+        if (stems[term] < 0) {
+            stems[term] = dictionary.getId(stemmer.stem(dictionary.getTerm(term)));
+        }
+        return stems[term];
+    }
+}
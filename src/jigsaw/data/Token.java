@@ -55,7 +55,7 @@ public class Token {
     /**
      * Token synsets
      */
-    private String[] syns;
+    private int[] syns;
     
     /**
      * Token synset assigned by WSD algorithm
@@ -121,14 +121,14 @@ public class Token {
     /**
      * @return the syns
      */
-    public String[] getSyns() {
+    public int[] getSyns() {
         return syns;
     }
 
     /**
      * @param syns the syns to set
      */
-    public void setSyns(String[] syns) {
+    public void setSyns(int[] syns) {
         this.syns = syns;
     }
 
@@ -0,0 +1,97 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.mwn;
+
+/**
+ * Access to MultiWordNet used by {@link MultiWordNet}. Synsets are identified
+ * by an int index assigned by the backend, the relations of a synset of a
+ * given type are the targets returned by getRelationTargets(index, type).
+ *
+ * @author Basile Pierpaolo
+ */
+public interface MWNBackend {
+
+    /**
+     * Return the synsets of an italian word
+     *
+     * @param word Word
+     * @param pos POS-tag (see {@link MWNType})
+     * @return Synsets, an empty array if the word is not found and null if
+     * the word has no synsets with the POS-tag
+     */
+    public MWNSynset[] lookupItalianSynset(String word, int pos);
+
+    /**
+     * Return the synset by index
+     *
+     * @param index Synset index
+     * @return Synset or null if the index is not assigned to any synset
+     */
+    public MWNSynset getSynset(int index);
+
+    /**
+     * Return the synset id by index
+     *
+     * @param index Synset index
+     * @return Synset id
+     */
+    public String getSynsetId(int index);
+
+    /**
+     * Return the synset index by id
+     *
+     * @param id Synset id
+     * @return Synset index, -1 if the id is not found
+     */
+    public int getSynsetIndex(String id);
+
+    /**
+     * Return the targets of the relations of a synset, in the order of the
+     * synset pointers. The array must not be modified.
+     *
+     * @param index Synset index
+     * @param type Relation type (see {@link MWNType})
+     * @return The indexes of the target synsets, an empty array if the synset
+     * has no relations of the type
+     */
+    public int[] getRelationTargets(int index, int type);
+
+    /**
+     * Release the resources
+     */
+    public void close();
+}
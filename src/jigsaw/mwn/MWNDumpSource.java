@@ -0,0 +1,635 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.mwn;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the MultiWordNet tables from the files of the distribution, without
+ * a database server. The dump can be:
+ * <ul>
+ * <li>a SQL dump file (mysqldump format, .gz is decompressed) which contains
+ * all the tables</li>
+ * <li>a directory which contains a file for each table: table.sql (or
+ * table.sql.gz) with the SQL dump of the table, or table.tsv with a header
+ * row of column names, tab-separated values and \N for NULL</li>
+ * </ul>
+ * Each file is read only once, by its own thread, which starts when the first
+ * of its tables is opened. The rows are passed to the reader of the table
+ * through a bounded queue, so only a few thousand rows of each table are in
+ * memory. A SQL dump file contains all the tables in its own order: the rows
+ * of a table which is not opened yet are saved in a temporary file and they
+ * are returned before the queued rows when the table is opened. Every table
+ * must be in the dump with at least one row, otherwise reading the table
+ * fails.
+ *
+ * @author Basile Pierpaolo
+ */
+public class MWNDumpSource implements MWNTableSource {
+
+    private static final int QUEUE_SIZE = 4096;
+    private static final String[] END = new String[0];
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private final Map<String, Table> tables = new HashMap<String, Table>();
+    private final List<DumpReader> readers = new ArrayList<DumpReader>();
+
+    /**
+     * Creates the source, the files are read when the tables are opened
+     *
+     * @param dump Dump file or directory
+     * @param tables Tables to read
+     * @throws IOException Exception
+     */
+    public MWNDumpSource(File dump, String[] tables) throws IOException {
+        if (dump.isDirectory()) {
+            for (String table : tables) {
+                File file = new File(dump, table + ".sql");
+                boolean tsv = false;
+                if (!file.exists()) {
+                    file = new File(dump, table + ".sql.gz");
+                }
+                if (!file.exists()) {
+                    file = new File(dump, table + ".tsv");
+                    tsv = true;
+                }
+                if (!file.exists()) {
+                    throw new IOException("Dump of table " + table + " not found: " + file);
+                }
+                DumpReader reader = new DumpReader(file, tsv);
+                addTable(table, reader);
+                readers.add(reader);
+            }
+        } else {
+            if (!dump.exists()) {
+                throw new IOException("Dump not found: " + dump);
+            }
+            DumpReader reader = new DumpReader(dump, false);
+            for (String table : tables) {
+                addTable(table, reader);
+            }
+            readers.add(reader);
+        }
+    }
+
+    private void addTable(String name, DumpReader reader) {
+        Table table = new Table(name, reader);
+        tables.put(name, table);
+        reader.tables.put(name, table);
+    }
+
+    @Override
+    public Rows open(String name) throws Exception {
+        final Table table = tables.get(name);
+        if (table == null) {
+            throw new IllegalArgumentException("Table not read from the dump: " + name);
+        }
+        table.reader.startOnce();
+        final DataInputStream spill = table.open();
+        return new Rows() {
+
+            private DataInputStream saved = spill;
+            private String[] row;
+
+            @Override
+            public boolean next() throws Exception {
+                if (row == END) {
+                    return false;
+                }
+                if (saved != null) {
+                    row = readRow(saved);
+                    if (row != null) {
+                        return true;
+                    }
+                    table.deleteSpill(saved);
+                    saved = null;
+                }
+                row = table.finished ? END : table.queue.take();
+                if (row == END) {
+                    if (table.error != null) {
+                        throw table.error;
+                    }
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            public String getString(String column) throws Exception {
+                Integer index = table.columns.get(column);
+                if (index == null) {
+                    throw new IllegalArgumentException("Unknown column: " + table.name + "." + column);
+                }
+                return index < row.length ? row[index] : null;
+            }
+
+            @Override
+            public void close() throws Exception {
+                if (saved != null) {
+                    table.deleteSpill(saved);
+                    saved = null;
+                }
+                table.close();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DumpReader reader : readers) {
+            reader.interrupt();
+        }
+        for (Table table : tables.values()) {
+            table.close();
+        }
+    }
+
+    private static BufferedReader openReader(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (file.getName().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        return new BufferedReader(new InputStreamReader(in, UTF8), 1 << 16);
+    }
+
+    private static void writeRow(DataOutputStream out, String[] row) throws IOException {
+        out.writeInt(row.length);
+        for (String value : row) {
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] bytes = value.getBytes(UTF8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static String[] readRow(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException ex) {
+            return null;
+        }
+        String[] row = new String[length];
+        for (int i = 0; i < length; i++) {
+            int size = in.readInt();
+            if (size >= 0) {
+                byte[] bytes = new byte[size];
+                in.readFully(bytes);
+                row[i] = new String(bytes, UTF8);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * A table of the dump. Until the table is opened the rows are saved in a
+     * temporary file, then they are queued.
+     */
+    private static class Table {
+
+        private final String name;
+        private final DumpReader reader;
+        private final BlockingQueue<String[]> queue = new ArrayBlockingQueue<String[]>(QUEUE_SIZE);
+        private volatile Map<String, Integer> columns = new HashMap<String, Integer>();
+        private volatile Exception error;
+        //true if the file is read before the table is opened
+        private volatile boolean finished = false;
+        private boolean opened = false;
+        private boolean closed = false;
+        private File spillFile;
+        private DataOutputStream spill;
+        //used only by the reader thread
+        private int rows = 0;
+
+        Table(String name, DumpReader reader) {
+            this.name = name;
+            this.reader = reader;
+        }
+
+        private synchronized DataInputStream open() throws IOException {
+            if (opened) {
+                throw new IllegalStateException("Table already read: " + name);
+            }
+            opened = true;
+            if (spillFile == null) {
+                return null;
+            }
+            spill.close();
+            spill = null;
+            return new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile), 1 << 16));
+        }
+
+        private void add(String[] row) throws Exception {
+            rows++;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (!opened) {
+                    if (spill == null) {
+                        spillFile = File.createTempFile("mwn-" + name, ".rows");
+                        spillFile.deleteOnExit();
+                        spill = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile), 1 << 16));
+                    }
+                    writeRow(spill, row);
+                    return;
+                }
+            }
+            queue.put(row);
+        }
+
+        private void end(Exception ex) throws InterruptedException {
+            error = ex;
+            synchronized (this) {
+                if (!opened) {
+                    finished = true;
+                    return;
+                }
+            }
+            queue.put(END);
+        }
+
+        private synchronized void deleteSpill(DataInputStream in) throws IOException {
+            in.close();
+            spillFile.delete();
+            spillFile = null;
+        }
+
+        private synchronized void close() throws IOException {
+            closed = true;
+            queue.clear();
+            if (spill != null) {
+                spill.close();
+                spill = null;
+            }
+            if (spillFile != null && !opened) {
+                spillFile.delete();
+                spillFile = null;
+            }
+        }
+    }
+
+    /**
+     * Thread which reads a file of the dump and passes the rows of each
+     * statement to its table. The column map of a table is filled before its
+     * first row.
+     */
+    private static class DumpReader extends Thread {
+
+        private final File file;
+        private final boolean tsv;
+        private final Map<String, Table> tables = new HashMap<String, Table>();
+        private boolean started = false;
+
+        DumpReader(File file, boolean tsv) {
+            super("mwn-dump-" + file.getName());
+            this.file = file;
+            this.tsv = tsv;
+            setDaemon(true);
+        }
+
+        private synchronized void startOnce() {
+            if (!started) {
+                started = true;
+                start();
+            }
+        }
+
+        @Override
+        public void run() {
+            Exception error = null;
+            try {
+                BufferedReader reader = openReader(file);
+                try {
+                    if (tsv) {
+                        parseTsv(reader, tables.values().iterator().next());
+                    } else {
+                        parseSql(reader);
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (InterruptedException ex) {
+                return;
+            } catch (Exception ex) {
+                Logger.getLogger(MWNDumpSource.class.getName()).log(Level.SEVERE, "Error to parse the dump: " + file, ex);
+                error = ex;
+            }
+            try {
+                for (Table table : tables.values()) {
+                    if (error == null && table.rows == 0) {
+                        table.end(new IOException("Table " + table.name + " not found or empty in the dump: " + file));
+                    } else {
+                        table.end(error);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                //the source is closed
+            }
+        }
+
+        private void parseTsv(BufferedReader reader, Table table) throws Exception {
+            String line = reader.readLine();
+            if (line == null) {
+                return;
+            }
+            setColumns(table, splitTsv(line));
+            while ((line = reader.readLine()) != null) {
+                if (line.length() > 0) {
+                    table.add(splitTsv(line));
+                }
+            }
+        }
+
+        private static String[] splitTsv(String line) {
+            String[] values = line.split("\t", -1);
+            for (int i = 0; i < values.length; i++) {
+                String value = values[i];
+                if (value.equals("\\N")) {
+                    values[i] = null;
+                } else if (value.indexOf('\\') >= 0) {
+                    StringBuilder sb = new StringBuilder(value.length());
+                    for (int k = 0; k < value.length(); k++) {
+                        char c = value.charAt(k);
+                        if (c == '\\' && k + 1 < value.length()) {
+                            sb.append(unescape(value.charAt(++k)));
+                        } else {
+                            sb.append(c);
+                        }
+                    }
+                    values[i] = sb.toString();
+                }
+            }
+            return values;
+        }
+
+        private void parseSql(BufferedReader reader) throws Exception {
+            StringBuilder name = new StringBuilder();
+            List<String> tableColumns = new ArrayList<String>();
+            //table of the CREATE TABLE statement which is parsed
+            Table create = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (create != null) {
+                    String trimmed = line.trim();
+                    if (trimmed.startsWith(")")) {
+                        setColumns(create, tableColumns.toArray(new String[tableColumns.size()]));
+                        create = null;
+                    } else {
+                        String column = columnName(trimmed);
+                        if (column != null) {
+                            tableColumns.add(column);
+                        }
+                    }
+                    continue;
+                }
+                int end = statementTable(line, "CREATE TABLE", name);
+                if (end >= 0) {
+                    create = tables.get(name.toString());
+                    tableColumns.clear();
+                    continue;
+                }
+                end = statementTable(line, "INSERT INTO", name);
+                if (end < 0) {
+                    continue;
+                }
+                Table table = tables.get(name.toString());
+                if (table == null) {
+                    continue;
+                }
+                int values = indexOfIgnoreCase(line, " VALUES", end);
+                if (values < 0) {
+                    throw new IOException("Wrong INSERT statement: " + line.substring(0, Math.min(line.length(), 100)));
+                }
+                String names = line.substring(end, values).trim();
+                if (names.startsWith("(")) {
+                    String[] list = names.substring(1, names.length() - 1).split(",");
+                    for (int i = 0; i < list.length; i++) {
+                        list[i] = list[i].trim().replace("`", "");
+                    }
+                    setColumns(table, list);
+                } else if (table.columns.isEmpty()) {
+                    throw new IOException("INSERT without columns before CREATE TABLE: " + table.name);
+                }
+                parseValues(table, line, values + 7);
+            }
+        }
+
+        /**
+         * If line is a statement which starts with keyword (case insensitive)
+         * the name of the table, without backticks and schema, is stored in
+         * name
+         *
+         * @return The position after the table name, -1 if line is not a
+         * statement of this type
+         */
+        private static int statementTable(String line, String keyword, StringBuilder name) {
+            if (!line.regionMatches(true, 0, keyword, 0, keyword.length())) {
+                return -1;
+            }
+            int i = skipSpaces(line, keyword.length());
+            if (line.regionMatches(true, i, "IF NOT EXISTS", 0, 13)) {
+                i = skipSpaces(line, i + 13);
+            }
+            int n = line.length();
+            while (true) {
+                name.setLength(0);
+                if (i < n && line.charAt(i) == '`') {
+                    int end = line.indexOf('`', i + 1);
+                    if (end < 0) {
+                        return -1;
+                    }
+                    name.append(line, i + 1, end);
+                    i = end + 1;
+                } else {
+                    int end = i;
+                    while (end < n && line.charAt(end) != ' ' && line.charAt(end) != '(' && line.charAt(end) != '.') {
+                        end++;
+                    }
+                    name.append(line, i, end);
+                    i = end;
+                }
+                //schema.table
+                if (i < n && line.charAt(i) == '.') {
+                    i++;
+                } else {
+                    return name.length() == 0 ? -1 : i;
+                }
+            }
+        }
+
+        private static int skipSpaces(String line, int i) {
+            while (i < line.length() && line.charAt(i) == ' ') {
+                i++;
+            }
+            return i;
+        }
+
+        private static int indexOfIgnoreCase(String line, String s, int from) {
+            for (int i = from; i <= line.length() - s.length(); i++) {
+                if (line.regionMatches(true, i, s, 0, s.length())) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Return the column defined by a line of CREATE TABLE, null if the
+         * line defines a key or a constraint
+         */
+        private static String columnName(String trimmed) {
+            if (trimmed.startsWith("`")) {
+                int end = trimmed.indexOf('`', 1);
+                return end < 0 ? null : trimmed.substring(1, end);
+            }
+            int end = 0;
+            while (end < trimmed.length() && !Character.isWhitespace(trimmed.charAt(end))) {
+                end++;
+            }
+            String token = trimmed.substring(0, end);
+            String upper = token.toUpperCase();
+            if (token.isEmpty() || upper.equals("PRIMARY") || upper.equals("KEY") || upper.equals("UNIQUE") || upper.equals("INDEX")
+                    || upper.equals("FULLTEXT") || upper.equals("SPATIAL") || upper.equals("CONSTRAINT") || upper.equals("FOREIGN") || upper.equals("CHECK")) {
+                return null;
+            }
+            return token;
+        }
+
+        /**
+         * Parse the tuples of an INSERT statement: ('a',NULL,1),('b',...);
+         */
+        private static void parseValues(Table table, String line, int start) throws Exception {
+            List<String> row = new ArrayList<String>();
+            StringBuilder sb = new StringBuilder();
+            int i = start;
+            int n = line.length();
+            while (i < n) {
+                char c = line.charAt(i);
+                if (c == '(') {
+                    row.clear();
+                    i++;
+                } else if (c == '\'') {
+                    sb.setLength(0);
+                    i++;
+                    while (i < n) {
+                        c = line.charAt(i);
+                        if (c == '\\' && i + 1 < n) {
+                            sb.append(unescape(line.charAt(i + 1)));
+                            i += 2;
+                        } else if (c == '\'' && i + 1 < n && line.charAt(i + 1) == '\'') {
+                            sb.append('\'');
+                            i += 2;
+                        } else if (c == '\'') {
+                            i++;
+                            break;
+                        } else {
+                            sb.append(c);
+                            i++;
+                        }
+                    }
+                    row.add(sb.toString());
+                } else if (c == ',' || c == ' ') {
+                    i++;
+                } else if (c == ')') {
+                    table.add(row.toArray(new String[row.size()]));
+                    i++;
+                } else if (c == ';') {
+                    break;
+                } else {
+                    int end = i;
+                    while (end < n && line.charAt(end) != ',' && line.charAt(end) != ')') {
+                        end++;
+                    }
+                    String value = line.substring(i, end).trim();
+                    row.add(value.equalsIgnoreCase("NULL") ? null : value);
+                    i = end;
+                }
+            }
+        }
+
+        private static char unescape(char c) {
+            switch (c) {
+                case '0':
+                    return '\0';
+                case 'b':
+                    return '\b';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'Z':
+                    return '\u001a';
+                default:
+                    return c;
+            }
+        }
+
+        private static void setColumns(Table table, String[] names) {
+            Map<String, Integer> map = new HashMap<String, Integer>();
+            for (int i = 0; i < names.length; i++) {
+                map.put(names[i], i);
+            }
+            table.columns = map;
+        }
+    }
+}
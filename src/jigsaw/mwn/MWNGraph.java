@@ -0,0 +1,145 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.mwn;
+
+import java.util.List;
+
+/**
+ * The MultiWordNet relations, one array of targets for each synset and
+ * relation type. Synsets are identified by their index (see
+ * {@link MWNapi_ext#getSynsetIndex(String)}): the arrays are built once, in
+ * the order of the synset pointers, and getTargets returns them without
+ * copying.
+ *
+ * @author Basile Pierpaolo
+ */
+public class MWNGraph {
+
+    /**
+     * Number of relation types (see {@link MWNType})
+     */
+    public static final int TYPES = 22;
+    private static final int[] EMPTY = new int[0];
+    private final int size;
+    /**
+     * Targets of each synset, size elements for each type, null if the type
+     * has no relations (or the synset has no relations of the type)
+     */
+    private final int[][][] targets;
+
+    private MWNGraph(int size, int[][][] targets) {
+        this.size = size;
+        this.targets = targets;
+    }
+
+    /**
+     * Build the graph from the pointers of the synsets
+     *
+     * @param synsets Synsets by index (null if the index is not assigned to a
+     * synset)
+     * @return The graph
+     */
+    public static MWNGraph build(List<MWNSynset> synsets) {
+        int size = synsets.size();
+        int[][][] targets = new int[TYPES][][];
+        for (int i = 0; i < size; i++) {
+            MWNSynset s = synsets.get(i);
+            if (s != null) {
+                int[][] synsetTargets = buildTargets(s);
+                for (int type = 0; type < TYPES; type++) {
+                    if (synsetTargets[type] != null) {
+                        if (targets[type] == null) {
+                            targets[type] = new int[size][];
+                        }
+                        targets[type][i] = synsetTargets[type];
+                    }
+                }
+            }
+        }
+        return new MWNGraph(size, targets);
+    }
+
+    /**
+     * Group the target indexes of the synset pointers by relation type
+     *
+     * @param s Synset, the target indexes of the pointers must be set
+     * @return The targets for each type, null if the synset has no relations
+     * of the type
+     */
+    static int[][] buildTargets(MWNSynset s) {
+        int[] count = new int[TYPES];
+        for (MWNPointer p : s.getPointers()) {
+            if (p.getType() >= 0 && p.getType() < TYPES) {
+                count[p.getType()]++;
+            }
+        }
+        int[][] targets = new int[TYPES][];
+        for (int type = 0; type < TYPES; type++) {
+            if (count[type] > 0) {
+                targets[type] = new int[count[type]];
+                count[type] = 0;
+            }
+        }
+        for (MWNPointer p : s.getPointers()) {
+            int type = p.getType();
+            if (type >= 0 && type < TYPES) {
+                targets[type][count[type]++] = p.getTargetIndex();
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * @param synset Synset index
+     * @param type Relation type
+     * @return The targets of the synset, an empty array if the synset has no
+     * relations of the type. The array is shared and must not be modified
+     */
+    public int[] getTargets(int synset, int type) {
+        if (type < 0 || type >= TYPES || targets[type] == null || synset < 0 || synset >= size || targets[type][synset] == null) {
+            return EMPTY;
+        }
+        return targets[type][synset];
+    }
+
+    /**
+     * @return Number of synset indexes
+     */
+    public int size() {
+        return size;
+    }
+}
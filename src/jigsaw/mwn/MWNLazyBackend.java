@@ -0,0 +1,483 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.mwn;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jigsaw.utils.DBAccess;
+
+/**
+ * MultiWordNet backend which reads the synsets, the italian lemmas and the
+ * relations from the database when they are requested, instead of loading the
+ * whole MultiWordNet as {@link MWNapi_ext}. The synsets are read in batches of
+ * {@link #BATCH_SIZE} ids (the synsets of a lemma are read together) with
+ * prepared statements, and they are kept in a cache of limited size together
+ * with their relations. Synset indexes are assigned to the synset ids when
+ * they are met and they are never released, because they are used as keys
+ * by the caches of {@link MultiWordNet}: the two maps between ids and indexes
+ * grow up to the number of synset ids of MultiWordNet met by the job (about
+ * 100 bytes for each id). The relations are the same built by
+ * {@link MWNapi_ext}, reverse relations included, in the same order: the
+ * relations are ordered by table (common, italian and english relations) and
+ * then by source, target and type, which is the order of the eager load when
+ * the rows of the relation tables are stored in this order (the tables have
+ * no row id, so the stored order cannot be read). The database is accessed by
+ * a small pool of connections.
+ *
+ * @author Basile Pierpaolo
+ */
+public class MWNLazyBackend implements MWNBackend {
+
+    /**
+     * Number of synset ids read by a query
+     */
+    public static final int BATCH_SIZE = 16;
+    private static final String REVERSE_TYPES = "('@', '#m', '#s', '#p')";
+    private static final String[] RELATION_TABLES = new String[]{"common_relation", "italian_relation", "english_relation"};
+    private static final int COMMON = 1;
+    private static final int ENGLISH = 3;
+    private static final int[] NO_TARGETS = new int[0];
+    private static final Entry MISSING = new Entry(null, null);
+    private static final MWNLemma NO_LEMMA = new MWNLemma();
+    private final DBAccess dbAccess;
+    private final int connections;
+    private final LinkedBlockingQueue<Session> pool = new LinkedBlockingQueue<Session>();
+    private int openSessions = 0;
+    private final ConcurrentLinkedHashMap<Integer, Entry> synsets;
+    private final ConcurrentLinkedHashMap<String, MWNLemma> lemmas;
+    //not bounded, see the class comment
+    private final ConcurrentHashMap<String, Integer> indexes = new ConcurrentHashMap<String, Integer>();
+    private final ConcurrentHashMap<Integer, String> ids = new ConcurrentHashMap<Integer, String>();
+
+    /**
+     * @param dbAccess Database access
+     * @param cacheSize Number of synsets (and of lemmas) kept in the cache
+     * @param connections Max number of database connections
+     */
+    public MWNLazyBackend(DBAccess dbAccess, int cacheSize, int connections) {
+        this.dbAccess = dbAccess;
+        this.connections = Math.max(1, connections);
+        this.synsets = new ConcurrentLinkedHashMap.Builder<Integer, Entry>().maximumWeightedCapacity(Math.max(1, cacheSize)).build();
+        this.lemmas = new ConcurrentLinkedHashMap.Builder<String, MWNLemma>().maximumWeightedCapacity(Math.max(1, cacheSize)).build();
+    }
+
+    @Override
+    public MWNSynset[] lookupItalianSynset(String word, int pos) {
+        MWNLemma l = getLemma(word);
+        if (l == null) {
+            return new MWNSynset[0];
+        }
+        String[] offsets = null;
+        if (pos == MWNType.NOUN) {
+            offsets = l.getNoun();
+        } else if (pos == MWNType.VERB) {
+            offsets = l.getVerb();
+        } else if (pos == MWNType.ADJ) {
+            offsets = l.getAdj();
+        } else if (pos == MWNType.ADV) {
+            offsets = l.getAdv();
+        }
+        if (offsets == null) {
+            return null;
+        }
+        int[] index = new int[offsets.length];
+        List<String> missing = new ArrayList<String>();
+        for (int i = 0; i < offsets.length; i++) {
+            index[i] = intern(offsets[i]);
+            if (synsets.get(index[i]) == null) {
+                missing.add(offsets[i]);
+            }
+        }
+        if (!missing.isEmpty()) {
+            load(missing);
+        }
+        MWNSynset[] result = new MWNSynset[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            result[i] = getSynset(index[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public MWNSynset getSynset(int index) {
+        Entry entry = getEntry(index);
+        return entry == null ? null : entry.synset;
+    }
+
+    @Override
+    public String getSynsetId(int index) {
+        return ids.get(index);
+    }
+
+    @Override
+    public int getSynsetIndex(String id) {
+        int index = intern(id);
+        if (getSynset(index) == null) {
+            return -1;
+        }
+        return index;
+    }
+
+    @Override
+    public int[] getRelationTargets(int index, int type) {
+        Entry entry = getEntry(index);
+        if (entry == null || entry.targets == null || type < 0 || type >= MWNGraph.TYPES || entry.targets[type] == null) {
+            return NO_TARGETS;
+        }
+        return entry.targets[type];
+    }
+
+    @Override
+    public void close() {
+        Session session;
+        while ((session = pool.poll()) != null) {
+            session.close();
+        }
+        synsets.clear();
+        lemmas.clear();
+    }
+
+    /**
+     * @return Number of synsets in the cache
+     */
+    public int getCachedSynsets() {
+        return synsets.size();
+    }
+
+    private int intern(String id) {
+        Integer index = indexes.get(id);
+        if (index == null) {
+            synchronized (indexes) {
+                index = indexes.get(id);
+                if (index == null) {
+                    index = indexes.size();
+                    ids.put(index, id);
+                    indexes.put(id, index);
+                }
+            }
+        }
+        return index;
+    }
+
+    private Entry getEntry(int index) {
+        Entry entry = synsets.get(index);
+        if (entry == null) {
+            String id = ids.get(index);
+            if (id == null) {
+                return null;
+            }
+            load(Arrays.asList(id));
+            entry = synsets.get(index);
+        }
+        return entry == MISSING ? null : entry;
+    }
+
+    private MWNLemma getLemma(String word) {
+        MWNLemma l = lemmas.get(word);
+        if (l == null) {
+            Session session = null;
+            try {
+                session = takeSession();
+                session.lemma.setString(1, word);
+                ResultSet rs = session.lemma.executeQuery();
+                l = NO_LEMMA;
+                while (rs.next()) {
+                    //the database comparison may ignore the case
+                    if (word.equals(rs.getString(1))) {
+                        l = new MWNLemma();
+                        l.setLemma(word);
+                        l.setNoun(split(rs.getString(2)));
+                        l.setVerb(split(rs.getString(3)));
+                        l.setAdj(split(rs.getString(4)));
+                        l.setAdv(split(rs.getString(5)));
+                    }
+                }
+                rs.close();
+                releaseSession(session);
+                lemmas.put(word, l);
+            } catch (Exception ex) {
+                Logger.getLogger(MWNLazyBackend.class.getName()).log(Level.SEVERE, "Error to read lemma: " + word, ex);
+                discardSession(session);
+                return null;
+            }
+        }
+        return l == NO_LEMMA ? null : l;
+    }
+
+    private void load(List<String> synsetIds) {
+        List<String> batch = new ArrayList<String>(BATCH_SIZE);
+        for (String id : new LinkedHashSet<String>(synsetIds)) {
+            batch.add(id);
+            if (batch.size() == BATCH_SIZE) {
+                loadBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            loadBatch(batch);
+        }
+    }
+
+    private void loadBatch(List<String> batch) {
+        Session session = null;
+        try {
+            session = takeSession();
+            Map<String, MWNSynset> found = new HashMap<String, MWNSynset>();
+            Set<String> english = new HashSet<String>();
+            ResultSet rs = execute(session.synsets, batch, 2);
+            while (rs.next()) {
+                String id = rs.getString(2);
+                boolean en = "e".equals(rs.getString(1));
+                if (en || !english.contains(id)) {
+                    MWNSynset s = new MWNSynset();
+                    s.setId(id);
+                    s.setWord(split(rs.getString(3)));
+                    s.setPhrase(split(rs.getString(4)));
+                    s.setGloss(rs.getString(5));
+                    found.put(id, s);
+                    if (en) {
+                        english.add(id);
+                    }
+                }
+            }
+            rs.close();
+            //the relations of the synsets and the reverse relations are read together, so the pointers are added in the order of the tables
+            rs = execute(session.relations, batch, 2 * RELATION_TABLES.length);
+            while (rs.next()) {
+                int type = MWNType.translateCode(rs.getString(1));
+                String id_source = rs.getString(2);
+                int table = rs.getInt(4);
+                if (rs.getInt(5) == 0) {
+                    MWNSynset s = found.get(id_source);
+                    if (s == null || (table != COMMON && !MWNType.isRelationSemantic(type)) || (table == ENGLISH && !english.contains(s.getId()))) {
+                        continue;
+                    }
+                    MWNPointer p = new MWNPointer();
+                    p.setType(type);
+                    p.setTarget(rs.getString(3));
+                    s.addPointer(p);
+                } else {
+                    MWNSynset s = found.get(rs.getString(3));
+                    if (s == null) {
+                        continue;
+                    }
+                    boolean sourceEn = rs.getString(6) != null;
+                    boolean sourceIt = rs.getString(7) != null;
+                    boolean targetEn = english.contains(s.getId());
+                    //the same conditions used by MWNapi_ext to build the reverse relations
+                    boolean reverse;
+                    if (table == COMMON) {
+                        reverse = targetEn ? sourceEn : !sourceEn && sourceIt;
+                    } else if (table == ENGLISH) {
+                        reverse = targetEn && sourceEn && MWNType.isRelationSemantic(type);
+                    } else {
+                        reverse = !targetEn && (sourceEn || sourceIt) && MWNType.isRelationSemantic(type);
+                    }
+                    if (reverse) {
+                        MWNPointer p = new MWNPointer();
+                        p.setType(reverseType(type));
+                        p.setTarget(id_source);
+                        s.addPointer(p);
+                    }
+                }
+            }
+            rs.close();
+            releaseSession(session);
+            for (String id : batch) {
+                int index = intern(id);
+                MWNSynset s = found.get(id);
+                if (s == null) {
+                    synsets.put(index, MISSING);
+                } else {
+                    s.setIndex(index);
+                    synsets.put(index, new Entry(s, buildTargets(s)));
+                }
+            }
+        } catch (Exception ex) {
+            Logger.getLogger(MWNLazyBackend.class.getName()).log(Level.SEVERE, "Error to read synsets: " + batch, ex);
+            discardSession(session);
+        }
+    }
+
+    private int[][] buildTargets(MWNSynset s) {
+        for (MWNPointer p : s.getPointers()) {
+            p.setTargetIndex(intern(p.getTarget()));
+        }
+        return MWNGraph.buildTargets(s);
+    }
+
+    private static int reverseType(int type) {
+        if (type == MWNType.HYPERNYM) {
+            return MWNType.HYPONYM;
+        } else if (type == MWNType.MEMBER_OF) {
+            return MWNType.HAS_MEMBER;
+        } else if (type == MWNType.SUBSTANCE_OF) {
+            return MWNType.HAS_SUBSTANCE;
+        } else {
+            return MWNType.HAS_PART;
+        }
+    }
+
+    private static String[] split(String value) {
+        return value == null ? null : value.split("\\s+");
+    }
+
+    /**
+     * Bind the batch ids to each group of BATCH_SIZE parameters, the last id
+     * is repeated when the batch is not full
+     */
+    private static ResultSet execute(PreparedStatement statement, List<String> batch, int groups) throws Exception {
+        int k = 1;
+        for (int g = 0; g < groups; g++) {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                statement.setString(k++, batch.get(Math.min(i, batch.size() - 1)));
+            }
+        }
+        return statement.executeQuery();
+    }
+
+    private Session takeSession() throws Exception {
+        Session session = pool.poll();
+        while (session == null) {
+            synchronized (pool) {
+                if (openSessions < connections) {
+                    session = new Session(dbAccess.openConnection());
+                    openSessions++;
+                    return session;
+                }
+            }
+            //a discarded session frees a connection, so the open sessions are checked again after the timeout
+            session = pool.poll(1, TimeUnit.SECONDS);
+        }
+        return session;
+    }
+
+    private void releaseSession(Session session) {
+        pool.offer(session);
+    }
+
+    private void discardSession(Session session) {
+        if (session != null) {
+            session.close();
+            synchronized (pool) {
+                openSessions--;
+            }
+        }
+    }
+
+    private static String placeholders() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("?");
+        }
+        return sb.toString();
+    }
+
+    private static class Entry {
+
+        private final MWNSynset synset;
+        /**
+         * Target synset indexes by relation type, null if the synset has no
+         * relations of the type
+         */
+        private final int[][] targets;
+
+        private Entry(MWNSynset synset, int[][] targets) {
+            this.synset = synset;
+            this.targets = targets;
+        }
+    }
+
+    /**
+     * A connection with its prepared statements
+     */
+    private static class Session {
+
+        private final Connection connection;
+        private final PreparedStatement lemma;
+        private final PreparedStatement synsets;
+        private final PreparedStatement relations;
+
+        private Session(Connection connection) throws Exception {
+            this.connection = connection;
+            String in = "(" + placeholders() + ")";
+            lemma = connection.prepareStatement("select lemma, id_n, id_v, id_a, id_r from italian_index where lemma = ?");
+            synsets = connection.prepareStatement("select 'e', id, word, phrase, gloss from english_synset where id in " + in
+                    + " union all select 'i', id, word, phrase, gloss from italian_synset where id in " + in);
+            //for each table: the relations of the synsets (incoming=0) and the relations used to build the reverse relations (incoming=1)
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < RELATION_TABLES.length; i++) {
+                if (i > 0) {
+                    sb.append(" union all ");
+                }
+                sb.append("select r.type, r.id_source, r.id_target, ").append(i + 1).append(" as table_order, 0 as incoming, null as source_en, null as source_it from ")
+                        .append(RELATION_TABLES[i]).append(" r where r.id_source in ").append(in);
+                sb.append(" union all select r.type, r.id_source, r.id_target, ").append(i + 1).append(", 1, e.id, i.id from ").append(RELATION_TABLES[i])
+                        .append(" r left join english_synset e on e.id = r.id_source left join italian_synset i on i.id = r.id_source where r.id_target in ")
+                        .append(in).append(" and r.type in ").append(REVERSE_TYPES);
+            }
+            sb.append(" order by table_order, id_source, id_target, type");
+            relations = connection.prepareStatement(sb.toString());
+        }
+
+        private void close() {
+            try {
+                connection.close();
+            } catch (Exception ex) {
+                Logger.getLogger(MWNLazyBackend.class.getName()).log(Level.WARNING, "Error to close connection", ex);
+            }
+        }
+    }
+}
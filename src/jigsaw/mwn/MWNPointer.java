@@ -61,6 +61,11 @@ public class MWNPointer {
      */
     private String target;
 
+    /**
+     * Pointer value index (only for semantic relations)
+     */
+    private int targetIndex = -1;
+
     public String getTarget() {
         return target;
     }
@@ -69,6 +74,14 @@ public class MWNPointer {
         this.target = target;
     }
 
+    public int getTargetIndex() {
+        return targetIndex;
+    }
+
+    public void setTargetIndex(int targetIndex) {
+        this.targetIndex = targetIndex;
+    }
+
     public int getType() {
         return type;
     }
@@ -51,6 +51,20 @@ public class MWNSynset {
     }
     private List<MWNPointer> list = new ArrayList<MWNPointer>();
     private String id;
+    private int index = -1;
+
+    /**
+     * Return the synset index assigned by the MWN API
+     *
+     * @return Synset index
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
 
     public String getId() {
         return this.id;
@@ -128,8 +142,24 @@ public class MWNSynset {
         return description.toString();
     }
 
+    /**
+     * Return the pointers of a relation type
+     *
+     * @param type Relation type
+     * @return Pointers
+     */
     public MWNPointer[] getPointer(int type) {
-        return list.toArray(new MWNPointer[list.size()]);
+        List<MWNPointer> pointers = new ArrayList<MWNPointer>();
+        for (MWNPointer p : list) {
+            if (p.getType() == type) {
+                pointers.add(p);
+            }
+        }
+        return pointers.toArray(new MWNPointer[pointers.size()]);
+    }
+
+    public List<MWNPointer> getPointers() {
+        return list;
     }
     private List<MWNDomain> domain = new ArrayList();
 
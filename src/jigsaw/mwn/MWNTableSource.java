@@ -0,0 +1,81 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.mwn;
+
+/**
+ * Source of the MultiWordNet tables read by {@link MWNapi_ext}: the database
+ * or a dump of the tables.
+ *
+ * @author Basile Pierpaolo
+ */
+public interface MWNTableSource {
+
+    /**
+     * Rows of a table, the columns are accessed by name
+     */
+    public interface Rows {
+
+        /**
+         * Move to the next row
+         *
+         * @return false if there are no more rows
+         * @throws Exception Exception
+         */
+        public boolean next() throws Exception;
+
+        /**
+         * @param column Column name
+         * @return The value of the column in the current row, null if it is
+         * NULL
+         * @throws Exception Exception
+         */
+        public String getString(String column) throws Exception;
+
+        public void close() throws Exception;
+    }
+
+    /**
+     * Return all the rows of a table
+     *
+     * @param table Table name
+     * @return Rows
+     * @throws Exception Exception
+     */
+    public Rows open(String table) throws Exception;
+
+    public void close() throws Exception;
+}
@@ -33,13 +33,33 @@
  */
 package jigsaw.mwn;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import jigsaw.utils.AtomicFile;
 import jigsaw.utils.DBAccess;
 
 /**
@@ -47,126 +67,172 @@ import jigsaw.utils.DBAccess;
  *
  * @author Pierpaolo
  */
-public class MWNapi_ext {
+public class MWNapi_ext implements MWNBackend {
 
+    private static final int SNAPSHOT_MAGIC = 0x4d574e53;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int FETCH_SIZE = 10000;
+    private static final String[] TABLES = new String[]{"english_synset", "english_index", "italian_synset", "italian_index", "common_relation", "italian_relation", "english_relation"};
     private DBAccess dbAccess;
     private Map<String, MWNSynset> synset_map_it;
     private Map<String, MWNSynset> synset_map_en;
     private Map<String, MWNLemma> lemma_map_it;
     private Map<String, MWNLemma> lemma_map_en;
+    private Map<String, Integer> synset_index;
+    private List<String> synset_ids;
+    private List<MWNSynset> synset_list;
+    private MWNGraph graph;
+    private Exception loadError;
 
     public MWNapi_ext(DBAccess dbAccess) {
         this.dbAccess = dbAccess;
     }
 
-    public void init() throws Exception {
+    /**
+     * Load MultiWordNet from the database
+     *
+     * @return true if MultiWordNet is loaded, false if an error occurred
+     * @throws Exception Exception
+     */
+    public boolean init() throws Exception {
+        loadError = null;
         try {
-            dbAccess.connect();
-            Connection connection = dbAccess.getConnection();
-            Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Loading MultiWordNet...");
-            Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Building IT synsets...");
+            load(new MWNTableSource() {
 
-            Statement statement = connection.createStatement();
+                @Override
+                public Rows open(String table) throws Exception {
+                    //each table is read by its own connection
+                    final Connection connection = dbAccess.openConnection();
+                    try {
+                        final Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                        if (connection.getMetaData().getDriverName().toLowerCase().contains("mysql")) {
+                            //the MySQL driver streams the rows only with this fetch size, otherwise the whole table is buffered
+                            statement.setFetchSize(Integer.MIN_VALUE);
+                        } else {
+                            statement.setFetchSize(FETCH_SIZE);
+                        }
+                        final ResultSet rs = statement.executeQuery("select * from " + table);
+                        return new Rows() {
 
-            Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Building EN synsets...");
-            synset_map_en = new HashMap<String, MWNSynset>();
-            ResultSet rs = statement.executeQuery("select * from english_synset");
-            while (rs.next()) {
-                MWNSynset s = new MWNSynset();
-                s.setId(rs.getString("id"));
-                String temp = rs.getString("word");
-                if (temp != null) {
-                    s.setWord(temp.split("\\s+"));
+                            @Override
+                            public boolean next() throws Exception {
+                                return rs.next();
+                            }
+
+                            @Override
+                            public String getString(String column) throws Exception {
+                                return rs.getString(column);
+                            }
+
+                            @Override
+                            public void close() throws Exception {
+                                try {
+                                    rs.close();
+                                    statement.close();
+                                } finally {
+                                    connection.close();
+                                }
+                            }
+                        };
+                    } catch (Exception ex) {
+                        connection.close();
+                        throw ex;
+                    }
                 }
-                temp = rs.getString("phrase");
-                if (temp != null) {
-                    s.setPhrase(temp.split("\\s+"));
+
+                @Override
+                public void close() throws Exception {
                 }
-                s.setGloss(rs.getString("gloss"));
-                synset_map_en.put(s.getId(), s);
-            }
-            rs.close();
-            Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "EN synsets={0}", synset_map_en.size());
+            });
+        } catch (Exception ex) {
+            Logger.getLogger(MWNapi_ext.class.getName()).log(Level.SEVERE, "Error to load MultiWordNet", ex);
+            reset();
+            loadError = ex;
+            return false;
+        }
+        return true;
+    }
 
-            Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Building EN lemmas index...");
-            lemma_map_en = new HashMap<String, MWNLemma>();
-            rs = statement.executeQuery("select * from english_index");
-            while (rs.next()) {
-                MWNLemma l = new MWNLemma();
-                l.setLemma(rs.getString("lemma"));
-                String temp = rs.getString("id_n");
-                if (temp != null) {
-                    l.setNoun(temp.split("\\s+"));
+    /**
+     * Load MultiWordNet from the SQL dump or the TSV exports of the tables
+     * (see {@link MWNDumpSource}), the database is not used
+     *
+     * @param dump Dump file or directory
+     * @return true if MultiWordNet is loaded, false if an error occurred
+     */
+    public boolean initFromDump(File dump) {
+        loadError = null;
+        try {
+            load(new MWNDumpSource(dump, TABLES));
+        } catch (Exception ex) {
+            Logger.getLogger(MWNapi_ext.class.getName()).log(Level.SEVERE, "Error to load MultiWordNet dump", ex);
+            reset();
+            loadError = ex;
+            return false;
+        }
+        return true;
+    }
+
+    private void load(final MWNTableSource source) throws Exception {
+        //the synsets and the lemmas are read concurrently, then the relation tables are read one at a time (the rows are not kept in memory)
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        MWNTableSource.Rows rs = null;
+        try {
+            Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Loading MultiWordNet...");
+            Future<Map<String, MWNSynset>> enSynsets = executor.submit(new Callable<Map<String, MWNSynset>>() {
+
+                @Override
+                public Map<String, MWNSynset> call() throws Exception {
+                    return readSynsets(source, "english_synset", new HashMap<String, MWNSynset>());
                 }
-                temp = rs.getString("id_v");
-                if (temp != null) {
-                    l.setVerb(temp.split("\\s+"));
+            });
+            Future<Map<String, MWNLemma>> enLemmas = executor.submit(new Callable<Map<String, MWNLemma>>() {
+
+                @Override
+                public Map<String, MWNLemma> call() throws Exception {
+                    return readLemmas(source, "english_index");
                 }
-                temp = rs.getString("id_a");
-                if (temp != null) {
-                    l.setAdj(temp.split("\\s+"));
+            });
+            Future<Map<String, MWNSynset>> itSynsets = executor.submit(new Callable<Map<String, MWNSynset>>() {
+
+                @Override
+                public Map<String, MWNSynset> call() throws Exception {
+                    return readSynsets(source, "italian_synset", new LinkedHashMap<String, MWNSynset>());
                 }
-                temp = rs.getString("id_r");
-                if (temp != null) {
-                    l.setAdv(temp.split("\\s+"));
+            });
+            Future<Map<String, MWNLemma>> itLemmas = executor.submit(new Callable<Map<String, MWNLemma>>() {
+
+                @Override
+                public Map<String, MWNLemma> call() throws Exception {
+                    return readLemmas(source, "italian_index");
                 }
-                lemma_map_en.put(l.getLemma(), l);
-            }
-            rs.close();
+            });
+
+            Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Building EN synsets...");
+            synset_map_en = get(enSynsets);
+            Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "EN synsets={0}", synset_map_en.size());
+
+            Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Building EN lemmas index...");
+            lemma_map_en = get(enLemmas);
             Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "EN lemmas={0}", lemma_map_en.size());
 
             Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Building IT synsets index...");
+            //the english synsets take precedence, the italian ones are added in the order of the table
             synset_map_it = new HashMap<String, MWNSynset>();
-            rs = statement.executeQuery("select * from italian_synset");
-            while (rs.next()) {
-                String id = rs.getString("id");
-                if (!synset_map_en.containsKey(id)) {
-                    MWNSynset s = new MWNSynset();
-                    s.setId(id);
-                    String temp = rs.getString("word");
-                    if (temp != null) {
-                        s.setWord(temp.split("\\s+"));
-                    }
-                    temp = rs.getString("phrase");
-                    if (temp != null) {
-                        s.setPhrase(temp.split("\\s+"));
-                    }
-                    s.setGloss(rs.getString("gloss"));
+            for (MWNSynset s : get(itSynsets).values()) {
+                if (!synset_map_en.containsKey(s.getId())) {
                     synset_map_it.put(s.getId(), s);
                 }
             }
-            rs.close();
             Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "IT synsets={0}", synset_map_it.size());
 
             Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Building IT lemmas index...");
-            lemma_map_it = new HashMap<String, MWNLemma>();
-            rs = statement.executeQuery("select * from italian_index");
-            while (rs.next()) {
-                MWNLemma l = new MWNLemma();
-                l.setLemma(rs.getString("lemma"));
-                String temp = rs.getString("id_n");
-                if (temp != null) {
-                    l.setNoun(temp.split("\\s+"));
-                }
-                temp = rs.getString("id_v");
-                if (temp != null) {
-                    l.setVerb(temp.split("\\s+"));
-                }
-                temp = rs.getString("id_a");
-                if (temp != null) {
-                    l.setAdj(temp.split("\\s+"));
-                }
-                temp = rs.getString("id_r");
-                if (temp != null) {
-                    l.setAdv(temp.split("\\s+"));
-                }
-                lemma_map_it.put(l.getLemma(), l);
-            }
-            rs.close();
+            lemma_map_it = get(itLemmas);
             Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "IT lemmas={0}", lemma_map_it.size());
 
             Logger.getLogger(MWNapi.class.getName()).log(Level.INFO, "Building common relations...");
-            rs = statement.executeQuery("select * from common_relation");
+            rs = source.open("common_relation");
             while (rs.next()) {
                 MWNPointer p = new MWNPointer();
                 p.setType(MWNType.translateCode(rs.getString("type")));
@@ -254,9 +320,10 @@ public class MWNapi_ext {
                 }
             }
             rs.close();
+            rs = null;
 
             Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Building italian relations...");
-            rs = statement.executeQuery("select * from italian_relation");
+            rs = source.open("italian_relation");
             while (rs.next()) {
                 MWNPointer p = new MWNPointer();
                 p.setType(MWNType.translateCode(rs.getString("type")));
@@ -332,9 +399,10 @@ public class MWNapi_ext {
                 }
             }
             rs.close();
+            rs = null;
 
             Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Building english relations...");
-            rs = statement.executeQuery("select * from english_relation");
+            rs = source.open("english_relation");
             while (rs.next()) {
                 MWNPointer p = new MWNPointer();
                 p.setType(MWNType.translateCode(rs.getString("type")));
@@ -404,24 +472,369 @@ public class MWNapi_ext {
                 }
             }
             rs.close();
+            rs = null;
 
+            //the italian lemmas and the synsets are required to disambiguate
+            if ((synset_map_en.isEmpty() && synset_map_it.isEmpty()) || lemma_map_it.isEmpty()) {
+                throw new IOException("MultiWordNet is not complete, no synsets or no italian lemmas");
+            }
+            buildSynsetIndex();
+        } finally {
+            executor.shutdownNow();
+            if (rs != null) {
+                rs.close();
+            }
+            source.close();
+        }
+    }
 
+    private static Map<String, MWNSynset> readSynsets(MWNTableSource source, String table, Map<String, MWNSynset> map) throws Exception {
+        MWNTableSource.Rows rs = source.open(table);
+        try {
+            while (rs.next()) {
+                MWNSynset s = new MWNSynset();
+                s.setId(rs.getString("id"));
+                String temp = rs.getString("word");
+                if (temp != null) {
+                    s.setWord(temp.split("\\s+"));
+                }
+                temp = rs.getString("phrase");
+                if (temp != null) {
+                    s.setPhrase(temp.split("\\s+"));
+                }
+                s.setGloss(rs.getString("gloss"));
+                map.put(s.getId(), s);
+            }
+        } finally {
+            rs.close();
+        }
+        return map;
+    }
 
-            connection.close();
-        } catch (Exception ex) {
-            Logger.getLogger(MWNapi_ext.class.getName()).log(Level.SEVERE, "Error to load MultiWordNet", ex);
+    private static Map<String, MWNLemma> readLemmas(MWNTableSource source, String table) throws Exception {
+        Map<String, MWNLemma> map = new HashMap<String, MWNLemma>();
+        MWNTableSource.Rows rs = source.open(table);
+        try {
+            while (rs.next()) {
+                MWNLemma l = new MWNLemma();
+                l.setLemma(rs.getString("lemma"));
+                String temp = rs.getString("id_n");
+                if (temp != null) {
+                    l.setNoun(temp.split("\\s+"));
+                }
+                temp = rs.getString("id_v");
+                if (temp != null) {
+                    l.setVerb(temp.split("\\s+"));
+                }
+                temp = rs.getString("id_a");
+                if (temp != null) {
+                    l.setAdj(temp.split("\\s+"));
+                }
+                temp = rs.getString("id_r");
+                if (temp != null) {
+                    l.setAdv(temp.split("\\s+"));
+                }
+                map.put(l.getLemma(), l);
+            }
+        } finally {
+            rs.close();
         }
+        return map;
     }
 
-    public void close() {
-        synset_map_en.clear();
-        synset_map_it.clear();
-        lemma_map_en.clear();
-        lemma_map_it.clear();
+    private static <T> T get(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private void buildSynsetIndex() {
+        Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Building synsets index...");
+        synset_index = new HashMap<String, Integer>();
+        synset_ids = new ArrayList<String>();
+        synset_list = new ArrayList<MWNSynset>();
+        for (MWNSynset s : synset_map_en.values()) {
+            s.setIndex(addSynsetIndex(s.getId(), s));
+        }
+        for (MWNSynset s : synset_map_it.values()) {
+            s.setIndex(addSynsetIndex(s.getId(), s));
+        }
+        for (int i = 0; i < synset_list.size(); i++) {
+            MWNSynset s = synset_list.get(i);
+            if (s != null) {
+                for (MWNPointer p : s.getPointers()) {
+                    Integer index = synset_index.get(p.getTarget());
+                    if (index == null) {
+                        //target synset not found, the index is assigned anyway to keep the relation
+                        index = addSynsetIndex(p.getTarget(), null);
+                    }
+                    p.setTargetIndex(index);
+                }
+            }
+        }
+        graph = MWNGraph.build(synset_list);
+        Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Synsets index={0}", synset_ids.size());
+    }
+
+    private int addSynsetIndex(String id, MWNSynset s) {
+        int index = synset_ids.size();
+        synset_index.put(id, index);
+        synset_ids.add(id);
+        synset_list.add(s);
+        return index;
+    }
+
+    /**
+     * Write the loaded MultiWordNet in a binary snapshot file. The snapshot
+     * contains the synsets with their pointers, the lemmas and the synset
+     * index, so that {@link #initFromSnapshot(File, long)} restores the same
+     * data without the database. The snapshot is written in a temporary file
+     * which replaces file when it is complete.
+     *
+     * @param file Snapshot file
+     * @param fingerprint Fingerprint of the source of MultiWordNet (database or
+     * dump), the snapshot is loaded only with the same fingerprint
+     * @throws IOException Exception
+     */
+    public void writeSnapshot(File file, long fingerprint) throws IOException {
+        if (synset_list == null) {
+            throw new IOException("MultiWordNet is not loaded");
+        }
+        File tmp = AtomicFile.temporary(file);
+        CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16), new CRC32());
+        DataOutputStream out = new DataOutputStream(checked);
+        try {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(synset_ids.size());
+            for (int i = 0; i < synset_ids.size(); i++) {
+                writeString(out, synset_ids.get(i));
+                MWNSynset s = synset_list.get(i);
+                if (s == null) {
+                    out.writeByte(0);
+                    continue;
+                }
+                out.writeByte(synset_map_en.get(s.getId()) == s ? 1 : 2);
+                writeStrings(out, s.getWord());
+                writeStrings(out, s.getPhrase());
+                writeString(out, s.getGloss());
+                List<MWNPointer> pointers = s.getPointers();
+                out.writeInt(pointers.size());
+                for (MWNPointer p : pointers) {
+                    out.writeInt(p.getType());
+                    writeString(out, p.getTarget());
+                    out.writeInt(p.getTargetIndex());
+                }
+            }
+            writeLemmas(out, lemma_map_en);
+            writeLemmas(out, lemma_map_it);
+            out.writeLong(checked.getChecksum().getValue());
+            out.close();
+            AtomicFile.commit(file);
+        } catch (IOException ex) {
+            out.close();
+            AtomicFile.discard(file);
+            throw ex;
+        }
+    }
+
+    /**
+     * Load MultiWordNet from a snapshot written by
+     * {@link #writeSnapshot(File, long)}, the database is not used. The
+     * snapshot is not loaded if it is corrupted or written from a source with
+     * a different fingerprint.
+     *
+     * @param file Snapshot file
+     * @param fingerprint Fingerprint of the source of MultiWordNet
+     * @throws IOException Exception
+     */
+    public void initFromSnapshot(File file, long fingerprint) throws IOException {
+        Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "Loading MultiWordNet snapshot: {0}", file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        //the last 8 bytes are the checksum of the content
+        if (bytes.length < 24) {
+            throw new IOException("MultiWordNet snapshot truncated: " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 8);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipBytes(bytes.length - 8);
+        if (in.readLong() != crc.getValue()) {
+            throw new IOException("MultiWordNet snapshot corrupted: " + file);
+        }
+        in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 8));
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a MultiWordNet snapshot (or wrong version): " + file);
+        }
+        if (in.readLong() != fingerprint) {
+            throw new IOException("MultiWordNet snapshot written from a different database or dump: " + file);
+        }
+        try {
+            readSnapshot(in);
+            if (in.available() != 0) {
+                throw new IOException("MultiWordNet snapshot corrupted: " + file);
+            }
+        } catch (IOException ex) {
+            reset();
+            throw ex;
+        } catch (RuntimeException ex) {
+            reset();
+            throw new IOException("MultiWordNet snapshot corrupted: " + file, ex);
+        }
+        Logger.getLogger(MWNapi_ext.class.getName()).log(Level.INFO, "EN synsets={0}, IT synsets={1}, EN lemmas={2}, IT lemmas={3}", new Object[]{synset_map_en.size(), synset_map_it.size(), lemma_map_en.size(), lemma_map_it.size()});
+    }
+
+    private void readSnapshot(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        synset_map_en = new HashMap<String, MWNSynset>();
+        synset_map_it = new HashMap<String, MWNSynset>();
+        synset_index = new HashMap<String, Integer>(size * 4 / 3 + 1);
+        synset_ids = new ArrayList<String>(size);
+        synset_list = new ArrayList<MWNSynset>(size);
+        for (int i = 0; i < size; i++) {
+            String id = readString(in);
+            int type = in.readByte();
+            MWNSynset s = null;
+            if (type != 0) {
+                s = new MWNSynset();
+                s.setId(id);
+                s.setIndex(i);
+                s.setWord(readStrings(in));
+                s.setPhrase(readStrings(in));
+                s.setGloss(readString(in));
+                int n = in.readInt();
+                for (int k = 0; k < n; k++) {
+                    MWNPointer p = new MWNPointer();
+                    p.setType(in.readInt());
+                    p.setTarget(readString(in));
+                    p.setTargetIndex(in.readInt());
+                    s.addPointer(p);
+                }
+                if (type == 1) {
+                    synset_map_en.put(id, s);
+                } else {
+                    synset_map_it.put(id, s);
+                }
+            }
+            synset_index.put(id, i);
+            synset_ids.add(id);
+            synset_list.add(s);
+        }
+        lemma_map_en = readLemmas(in);
+        lemma_map_it = readLemmas(in);
+        graph = MWNGraph.build(synset_list);
+    }
+
+    private static void writeLemmas(DataOutputStream out, Map<String, MWNLemma> lemmas) throws IOException {
+        out.writeInt(lemmas.size());
+        for (MWNLemma l : lemmas.values()) {
+            writeString(out, l.getLemma());
+            writeStrings(out, l.getNoun());
+            writeStrings(out, l.getVerb());
+            writeStrings(out, l.getAdj());
+            writeStrings(out, l.getAdv());
+        }
+    }
+
+    private static Map<String, MWNLemma> readLemmas(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, MWNLemma> lemmas = new HashMap<String, MWNLemma>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            MWNLemma l = new MWNLemma();
+            l.setLemma(readString(in));
+            l.setNoun(readStrings(in));
+            l.setVerb(readStrings(in));
+            l.setAdj(readStrings(in));
+            l.setAdv(readStrings(in));
+            lemmas.put(l.getLemma(), l);
+        }
+        return lemmas;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(s.length);
+            for (int i = 0; i < s.length; i++) {
+                writeString(out, s[i]);
+            }
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        String[] s = new String[length];
+        for (int i = 0; i < length; i++) {
+            s[i] = readString(in);
+        }
+        return s;
+    }
+
+    /**
+     * @return The error of the last load which returned false, null if no
+     * load failed
+     */
+    public Exception getLoadError() {
+        return loadError;
+    }
+
+    private void reset() {
         synset_map_en = null;
         synset_map_it = null;
         lemma_map_en = null;
         lemma_map_it = null;
+        synset_index = null;
+        synset_ids = null;
+        synset_list = null;
+        graph = null;
+    }
+
+    @Override
+    public void close() {
+        //the maps are null if MultiWordNet is not loaded
+        if (synset_map_en != null) {
+            synset_map_en.clear();
+        }
+        if (synset_map_it != null) {
+            synset_map_it.clear();
+        }
+        if (lemma_map_en != null) {
+            lemma_map_en.clear();
+        }
+        if (lemma_map_it != null) {
+            lemma_map_it.clear();
+        }
+        reset();
         System.gc();
     }
 
@@ -438,6 +851,62 @@ public class MWNapi_ext {
         return synset_map_en.get(offset);
     }
 
+    /**
+     * Return the synset by index
+     *
+     * @param index Synset index
+     * @return Synset or null if the index is not assigned to any synset
+     */
+    @Override
+    public MWNSynset getSynset(int index) {
+        if (index < 0 || index >= synset_list.size()) {
+            return null;
+        }
+        return synset_list.get(index);
+    }
+
+    /**
+     * @return The relations between the synsets
+     */
+    public MWNGraph getGraph() {
+        return graph;
+    }
+
+    @Override
+    public int[] getRelationTargets(int index, int type) {
+        return graph.getTargets(index, type);
+    }
+
+    /**
+     * Return the synset id by index
+     *
+     * @param index Synset index
+     * @return Synset id
+     */
+    @Override
+    public String getSynsetId(int index) {
+        if (index < 0 || index >= synset_ids.size()) {
+            return null;
+        }
+        return synset_ids.get(index);
+    }
+
+    /**
+     * Return the synset index by id
+     *
+     * @param id Synset id
+     * @return Synset index, -1 if the id is not found
+     */
+    @Override
+    public int getSynsetIndex(String id) {
+        Integer index = synset_index.get(id);
+        if (index == null) {
+            return -1;
+        }
+        return index;
+    }
+
+    @Override
     public MWNSynset[] lookupItalianSynset(String word, int pos) {
         MWNLemma l = lemma_map_it.get(word);
         if (l == null) {
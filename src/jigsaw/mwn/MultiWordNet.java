@@ -37,8 +37,11 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import jigsaw.wn.DistanceOracle;
+import jigsaw.wn.SynsetPairCache;
 import jigsaw.wn.WnNode;
 
 /**
@@ -52,9 +55,13 @@ public class MultiWordNet {
      * Max depth of relations.
      */
     public static int MAX_DEPTH = 16;
-    private MWNapi_ext mwn = null;
+    private MWNBackend mwn = null;
+    private SynsetPairCache<Integer> depthCache = null;
+    private SynsetPairCache<int[]> commonCache = null;
+    private final ConcurrentHashMap<Integer, DistanceOracle> distanceOracles = new ConcurrentHashMap<Integer, DistanceOracle>();
+    private int labelCacheSize = 0;
 
-    public MultiWordNet(MWNapi_ext mwn) {
+    public MultiWordNet(MWNBackend mwn) {
         this.mwn = mwn;
     }
 
@@ -68,24 +75,9 @@ public class MultiWordNet {
      * @throws Exception Exception
      * @return Distance
      */
-    public int getDepthByOffset(String s1, String s2, int relation) {
+    public int getDepthByOffset(int s1, int s2, int relation) {
         try {
-
-            List<WnNode> result1 = getAllRelationNode(s2, relation, MAX_DEPTH, MAX_DEPTH);
-            List<WnNode> result2 = getAllRelationNode(s1, relation, MAX_DEPTH, MAX_DEPTH);
-
-            int min = 2 * MAX_DEPTH;
-            for (int i = 0; i < result1.size(); i++) {
-                int index = result2.indexOf(result1.get(i));
-                if (index != -1) {
-                    int depth = result2.get(index).getDepth() + result1.get(i).getDepth();
-                    if (depth <= min) {
-                        min = depth;
-                    }
-                }
-            }
-
-            return min;
+            return getDistanceOracle(relation).getDistance(s1, s2, MAX_DEPTH, 2 * MAX_DEPTH);
         } catch (Exception ex) {
             Logger.getLogger(MultiWordNet.class.getName()).log(Level.SEVERE, "Error to compute depth: " + s1 + ", " + s2, ex);
             return MAX_DEPTH + 1;
@@ -104,28 +96,25 @@ public class MultiWordNet {
      * @throws Exception Exception
      * @return Distance
      */
-    public int getDepthByOffset(String s1, String s2, int relation, int maxDepth) {
+    public int getDepthByOffset(int s1, int s2, int relation, int maxDepth) {
+        if (depthCache == null) {
+            return computeDepthByOffset(s1, s2, relation, maxDepth);
+        }
+        Integer d = depthCache.get(s1, s2, null, relation, maxDepth);
+        if (d == null) {
+            d = computeDepthByOffset(s1, s2, relation, maxDepth);
+            depthCache.put(s1, s2, null, relation, maxDepth, d);
+        }
+        return d;
+    }
+
+    private int computeDepthByOffset(int s1, int s2, int relation, int maxDepth) {
         try {
             if (maxDepth < 0) {
                 Logger.getLogger(MultiWordNet.class.getName()).log(Level.WARNING, "Error to compute depth: depth < 0: {0}", maxDepth);
                 return MAX_DEPTH + 1;
             }
-            List<WnNode> result1 = getAllRelationNode(s2, relation, maxDepth, maxDepth);
-            List<WnNode> result2 = getAllRelationNode(s1, relation, maxDepth, maxDepth);
-
-
-            int min = 2 * MAX_DEPTH;
-            for (int i = 0; i < result1.size(); i++) {
-                int index = result2.indexOf(result1.get(i));
-                if (index != -1) {
-                    int depth = result2.get(index).getDepth() + result1.get(i).getDepth();
-                    if (depth <= min) {
-                        min = depth;
-                    }
-                }
-            }
-
-            return min;
+            return getDistanceOracle(relation).getDistance(s1, s2, maxDepth, 2 * MAX_DEPTH);
         } catch (Exception ex) {
             Logger.getLogger(MultiWordNet.class.getName()).log(Level.SEVERE, "Error to compute depth (max depth): " + s1 + ", " + s2, ex);
             return MAX_DEPTH + 1;
@@ -152,12 +141,9 @@ public class MultiWordNet {
         }
     }
 
-    private MWNSynset returnSynset(String offset) {
+    private MWNSynset returnSynset(int offset) {
         try {
-            MWNSynset s = mwn.getItalianSynset(offset);
-            /*if (s == null) {
-             s = mwn.getEnglishSynset(offset);
-             }*/
+            MWNSynset s = mwn.getSynset(offset);
             return s;
         } catch (Exception ex) {
             Logger.getLogger(MultiWordNet.class.getName()).log(Level.SEVERE, "Error to return synset: " + offset, ex);
@@ -206,19 +192,19 @@ public class MultiWordNet {
     /**
      * Return all synset offsets by word
      *
-     * @return Array of strings, each string represents a synset offset
+     * @return Array of synset indexes
      * @param word Word
      * @param pos Pos-tagger information
      */
-    public String[] getAllSynsetByWord(String word, String pos) {
+    public int[] getAllSynsetByWord(String word, String pos) {
         try {
             MWNSynset[] indexWord = returnIndexWord(word, pos);
             if (indexWord == null) {
-                return new String[0];
+                return new int[0];
             }
-            String[] offsets = new String[indexWord.length];
+            int[] offsets = new int[indexWord.length];
             for (int i = 0; i < indexWord.length; i++) {
-                offsets[i] = indexWord[i].getId();
+                offsets[i] = indexWord[i].getIndex();
             }
             return offsets;
         } catch (Exception ex) {
@@ -235,7 +221,7 @@ public class MultiWordNet {
      * @param pos POS-tag
      * @return String
      */
-    public String[] getAllWordsInSynset(String offset) {
+    public String[] getAllWordsInSynset(int offset) {
         MWNSynset s = this.returnSynset(offset);
         if (s == null) {
             Logger.getLogger(MultiWordNet.class.getName()).log(Level.WARNING, "Error in getAllWordsInSynset (synset null): {0}", offset);
@@ -268,7 +254,7 @@ public class MultiWordNet {
      * @param depth Max depth (max distance in WordNet)
      * @return String
      */
-    public String getRelationElement(String offset, int pointerType, int depth, boolean lemma) {
+    public String getRelationElement(int offset, int pointerType, int depth, boolean lemma) {
         StringBuilder buf = new StringBuilder();
         try {
             MWNSynset s = this.returnSynset(offset);
@@ -276,28 +262,7 @@ public class MultiWordNet {
                 Logger.getLogger(MultiWordNet.class.getName()).log(Level.WARNING, "Error in getRelationElement (synset null): {0}", offset);
                 return buf.toString();
             }
-            MWNPointer[] pt = s.getPointer(pointerType);
-            if (pt == null) {
-                //no pointer
-                return buf.toString();
-            }
-            for (int i = 0; i < pt.length; i++) {
-                String target = pt[i].getTarget();
-                if (target != null) {
-                    buf.append(target);
-                    buf.append(" ");
-                    if (depth > 0) {
-                        buf.append(getRelationElement(target, pointerType, depth - 1, lemma));
-                    }
-                }
-                MWNSynset sw = mwn.getItalianSynset(pt[i].getTarget());
-                if (sw != null) {
-                    String[] words = sw.getWord();
-                    for (int k = 0; words != null && k < words.length; k++) {
-                        buf.append(words[k].replaceAll("[_]", " ")).append(" ");
-                    }
-                }
-            }
+            appendRelationElement(buf, offset, pointerType, depth);
             return buf.toString();
 
         } catch (Exception ex) {
@@ -306,6 +271,32 @@ public class MultiWordNet {
         }
     }
 
+    private void appendRelationElement(StringBuilder buf, int offset, int pointerType, int depth) {
+        int[] targets = mwn.getRelationTargets(offset, pointerType);
+        for (int i = 0; i < targets.length; i++) {
+            int targetIndex = targets[i];
+            String target = mwn.getSynsetId(targetIndex);
+            if (target != null) {
+                buf.append(target);
+                buf.append(" ");
+                if (depth > 0) {
+                    if (mwn.getSynset(targetIndex) != null) {
+                        appendRelationElement(buf, targetIndex, pointerType, depth - 1);
+                    } else {
+                        Logger.getLogger(MultiWordNet.class.getName()).log(Level.WARNING, "Error in getRelationElement (synset null): {0}", targetIndex);
+                    }
+                }
+            }
+            MWNSynset sw = mwn.getSynset(targetIndex);
+            if (sw != null) {
+                String[] words = sw.getWord();
+                for (int k = 0; words != null && k < words.length; k++) {
+                    buf.append(words[k].replace('_', ' ')).append(" ");
+                }
+            }
+        }
+    }
+
     /**
      * Return a List which contains WnNodes (WordNet node) which are in relation
      * with a sysnet. The search start from start_depth.
@@ -317,7 +308,7 @@ public class MultiWordNet {
      * @param start_depth Start depth
      * @return List of {@link nlp.wordNet.types.WnNode}
      */
-    public List<WnNode> getAllRelationNode(String offset, int pointerType, int depth, int start_depth) {
+    public List<WnNode> getAllRelationNode(int offset, int pointerType, int depth, int start_depth) {
         Set<WnNode> result = new HashSet<WnNode>();
         try {
             MWNSynset s = this.returnSynset(offset);
@@ -325,15 +316,11 @@ public class MultiWordNet {
                 Logger.getLogger(MultiWordNet.class.getName()).log(Level.WARNING, "Error in getAllRelationNode (synset null): {0}", offset);
                 return new ArrayList<WnNode>(result);
             }
-            MWNPointer[] pt = s.getPointer(pointerType);
-            if (pt == null || pt.length == 0) {
-                //pointer null skip
-                return new ArrayList<WnNode>(result);
-            }
-            for (int i = 0; i < pt.length; i++) {
+            int[] targets = mwn.getRelationTargets(offset, pointerType);
+            for (int i = 0; i < targets.length; i++) {
                 WnNode node = new WnNode();
                 node.setDepth(start_depth - depth + 1);
-                node.setOffset(pt[i].getTarget());
+                node.setOffset(targets[i]);
                 if (!result.contains(node)) {
                     result.add(node);
                     if (depth > 0) {
@@ -359,16 +346,28 @@ public class MultiWordNet {
      * @param pos POS-tag
      * @param relation Relation type
      * @param depth Max depth
-     * @return The common synsets in relation with o1 and o2
+     * @return The depth and the index of the common synset in relation with o1 and o2, the index is -1 if there is no common synset
      */
-    public String[] getCommon(String o1, String o2, String pos, int relation, int depth) {
-        String[] result = new String[2];
+    public int[] getCommon(int o1, int o2, String pos, int relation, int depth) {
+        if (commonCache == null) {
+            return computeCommon(o1, o2, pos, relation, depth);
+        }
+        int[] common = commonCache.get(o1, o2, pos, relation, depth);
+        if (common == null) {
+            common = computeCommon(o1, o2, pos, relation, depth);
+            commonCache.put(o1, o2, pos, relation, depth, common);
+        }
+        return common.clone();
+    }
+
+    private int[] computeCommon(int o1, int o2, String pos, int relation, int depth) {
+        int[] result = new int[]{MAX_DEPTH + 1, -1};
 
         try {
             List<WnNode> list1 = this.getAllRelationNode(o1, relation, depth, depth);
             List<WnNode> list2 = this.getAllRelationNode(o2, relation, depth, depth);
             int minDepth = MAX_DEPTH + 1;
-            String offset = "-1";
+            int offset = -1;
             int index1 = -1, index2 = -1;
             int ref1 = -1, ref2 = -1;
             for (int i = 0; i < list1.size(); i++) {
@@ -410,12 +409,9 @@ public class MultiWordNet {
                     offset = list1.get(index1).getOffset();
                 }
             }
-            if (minDepth == MAX_DEPTH + 1) {
-                result[0] = String.valueOf(MAX_DEPTH + 1);
-                result[1] = "-1";
-            } else {
-                result[0] = String.valueOf(minDepth);
-                result[1] = String.valueOf(offset);
+            if (minDepth != MAX_DEPTH + 1) {
+                result[0] = minDepth;
+                result[1] = offset;
             }
 
 
@@ -437,7 +433,7 @@ public class MultiWordNet {
      * @throws Exception Exception
      * @return true/false
      */
-    public boolean isHypernym(String start, String end) throws Exception {
+    public boolean isHypernym(int start, int end) throws Exception {
         try {
             List<WnNode> result = getAllRelationNode(end, MWNType.HYPERNYM, MAX_DEPTH, MAX_DEPTH);
 
@@ -458,7 +454,7 @@ public class MultiWordNet {
      * @param pos POS tag
      * @return Synset description
      */
-    public String getAllDescriptionByOffset(String offset) {
+    public String getAllDescriptionByOffset(int offset) {
         MWNSynset syn = returnSynset(offset);
         if (syn != null) {
             return syn.toString();
@@ -475,7 +471,7 @@ public class MultiWordNet {
      * @param pos POS tag
      * @return Synset description
      */
-    public String getAllGlossByOffset(String offset) {
+    public String getAllGlossByOffset(int offset) {
         MWNSynset syn = returnSynset(offset);
         if (syn != null) {
             if (syn.getGloss() != null) {
@@ -496,7 +492,7 @@ public class MultiWordNet {
      * @param pos POS tag
      * @return Synset description
      */
-    public String getNormalizeDescriptionByOffset(String offset) {
+    public String getNormalizeDescriptionByOffset(int offset) {
         MWNSynset syn = returnSynset(offset);
         if (syn != null) {
             String description = syn.getGloss();
@@ -515,6 +511,77 @@ public class MultiWordNet {
         }
     }
 
+    /**
+     * Return the synset id (e.g. n#00001740) assigned to a synset index
+     *
+     * @param offset Synset index
+     * @return Synset id
+     */
+    public String getSynsetId(int offset) {
+        return mwn.getSynsetId(offset);
+    }
+
+    /**
+     * Return the synset index assigned to a synset id
+     *
+     * @param id Synset id
+     * @return Synset index, -1 if the synset id is not found
+     */
+    public int getSynsetIndex(String id) {
+        return mwn.getSynsetIndex(id);
+    }
+
+    /**
+     * Set the number of synset pairs stored in the distance and common
+     * subsumer caches, 0 disables the caches. The distance oracles keep the
+     * labels of cacheSize/10 synsets.
+     *
+     * @param cacheSize Cache size
+     */
+    public void setCacheSize(int cacheSize) {
+        labelCacheSize = cacheSize / 10;
+        distanceOracles.clear();
+        if (cacheSize > 0) {
+            depthCache = new SynsetPairCache<Integer>(cacheSize);
+            commonCache = new SynsetPairCache<int[]>(cacheSize);
+        } else {
+            depthCache = null;
+            commonCache = null;
+        }
+    }
+
+    /**
+     * @return The distance cache, null if the cache is disabled
+     */
+    public SynsetPairCache<Integer> getDepthCache() {
+        return depthCache;
+    }
+
+    /**
+     * @return The common subsumer cache, null if the cache is disabled
+     */
+    public SynsetPairCache<int[]> getCommonCache() {
+        return commonCache;
+    }
+
+    private DistanceOracle getDistanceOracle(final int relation) {
+        DistanceOracle oracle = distanceOracles.get(relation);
+        if (oracle == null) {
+            oracle = new DistanceOracle(new DistanceOracle.AncestorSource() {
+
+                @Override
+                public List<WnNode> getAncestors(int offset, int maxDepth) {
+                    return getAllRelationNode(offset, relation, maxDepth, maxDepth);
+                }
+            }, labelCacheSize);
+            DistanceOracle previous = distanceOracles.putIfAbsent(relation, oracle);
+            if (previous != null) {
+                oracle = previous;
+            }
+        }
+        return oracle;
+    }
+
     public void destroy() {
         mwn.close();
     }
@@ -0,0 +1,146 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.nlp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import opennlp.tools.sentdetect.SentenceDetector;
+import opennlp.tools.util.Span;
+
+/**
+ * Rule-based sentence detector, used when no OpenNLP sentence model is
+ * available. A sentence ends on a blank line or on . ! ? (followed by closing
+ * quotes or brackets) when the next character is an upper case letter, a
+ * digit or an opening quote. Periods after single letters and common
+ * abbreviations do not end a sentence.
+ *
+ * @author Basile Pierpaolo
+ */
+public class RuleSentenceDetector implements SentenceDetector {
+
+    private static final Set<String> ABBREVIATIONS = new HashSet<String>(Arrays.asList(
+            "mr", "mrs", "ms", "dr", "prof", "st", "jr", "sr", "vs", "etc", "inc", "ltd", "co", "corp", "no", "fig",
+            "jan", "feb", "mar", "apr", "jun", "jul", "aug", "sep", "sept", "oct", "nov", "dec",
+            "sig", "sigg", "dott", "ing", "avv", "pag", "ecc"));
+
+    @Override
+    public String[] sentDetect(String s) {
+        Span[] spans = sentPosDetect(s);
+        String[] sentences = new String[spans.length];
+        for (int i = 0; i < spans.length; i++) {
+            sentences[i] = s.substring(spans[i].getStart(), spans[i].getEnd());
+        }
+        return sentences;
+    }
+
+    @Override
+    public Span[] sentPosDetect(String s) {
+        List<Span> spans = new ArrayList<Span>();
+        int start = 0;
+        int i = 0;
+        int length = s.length();
+        while (i < length) {
+            char c = s.charAt(i);
+            int end = -1;
+            int next = i + 1;
+            if (c == '\n') {
+                int k = i + 1;
+                while (k < length && s.charAt(k) != '\n' && Character.isWhitespace(s.charAt(k))) {
+                    k++;
+                }
+                if (k < length && s.charAt(k) == '\n') {
+                    end = i;
+                    next = k + 1;
+                }
+            } else if ((c == '.' || c == '!' || c == '?') && !(c == '.' && isAbbreviation(s, start, i))) {
+                int k = i + 1;
+                while (k < length && (s.charAt(k) == '.' || s.charAt(k) == '!' || s.charAt(k) == '?' || isClosing(s.charAt(k)))) {
+                    k++;
+                }
+                int w = k;
+                while (w < length && Character.isWhitespace(s.charAt(w))) {
+                    w++;
+                }
+                if (w == length || (w > k && isSentenceStart(s.charAt(w)))) {
+                    end = k;
+                    next = k;
+                }
+            }
+            if (end >= 0) {
+                addSpan(s, start, end, spans);
+                start = next;
+                i = next;
+            } else {
+                i++;
+            }
+        }
+        addSpan(s, start, length, spans);
+        return spans.toArray(new Span[spans.size()]);
+    }
+
+    private static void addSpan(String s, int start, int end, List<Span> spans) {
+        while (start < end && Character.isWhitespace(s.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(s.charAt(end - 1))) {
+            end--;
+        }
+        if (end > start) {
+            spans.add(new Span(start, end));
+        }
+    }
+
+    private static boolean isAbbreviation(String s, int start, int period) {
+        int k = period;
+        while (k > start && Character.isLetter(s.charAt(k - 1))) {
+            k--;
+        }
+        String word = s.substring(k, period);
+        return word.length() == 1 || ABBREVIATIONS.contains(word.toLowerCase());
+    }
+
+    private static boolean isClosing(char c) {
+        return c == '"' || c == '\'' || c == ')' || c == ']' || c == '\u00bb' || c == '\u201d' || c == '\u2019';
+    }
+
+    private static boolean isSentenceStart(char c) {
+        return Character.isUpperCase(c) || Character.isDigit(c) || c == '"' || c == '\'' || c == '(' || c == '\u00ab' || c == '\u201c';
+    }
+}
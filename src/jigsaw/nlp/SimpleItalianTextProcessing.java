@@ -40,19 +40,50 @@ import java.util.Map;
 import java.util.Set;
 import opennlp.tools.postag.POSModel;
 import opennlp.tools.postag.POSTaggerME;
+import opennlp.tools.sentdetect.SentenceDetector;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import opennlp.tools.sentdetect.SentenceModel;
 import org.tartarus.snowball.SnowballStemmer;
 import org.tartarus.snowball.ext.italianStemmer;
 
 /**
  * This class implements the following NLP steps: tokenization, pos-tagging,
- * stemming and lemmatization for Italian
+ * stemming and lemmatization for Italian. The OpenNLP models are loaded once
+ * and shared, while the OpenNLP and Snowball components, which are not thread
+ * safe, are created for each thread: an instance can be used by many threads
+ * concurrently
  *
  * @author  Basile Pierpaolo
  */
 public class SimpleItalianTextProcessing {
 
-    private SnowballStemmer stemmer;
-    private POSTaggerME tagger;
+    private final POSModel posModel;
+    private final SentenceModel sentenceModel;
+    private final ThreadLocal<SnowballStemmer> stemmer = new ThreadLocal<SnowballStemmer>() {
+
+        @Override
+        protected SnowballStemmer initialValue() {
+            return new italianStemmer();
+        }
+    };
+    private final ThreadLocal<SentenceDetector> sentenceDetector = new ThreadLocal<SentenceDetector>() {
+
+        @Override
+        protected SentenceDetector initialValue() {
+            if (sentenceModel != null) {
+                return new SentenceDetectorME(sentenceModel);
+            } else {
+                return new RuleSentenceDetector();
+            }
+        }
+    };
+    private final ThreadLocal<POSTaggerME> tagger = new ThreadLocal<POSTaggerME>() {
+
+        @Override
+        protected POSTaggerME initialValue() {
+            return new POSTaggerME(posModel);
+        }
+    };
     private Set<String> stopWordSet = new HashSet<String>();
     private ItalianTokenizer tokenizer;
     private Map<String, String> lemmas;
@@ -87,11 +118,30 @@ public class SimpleItalianTextProcessing {
      * @throws Exception
      */
     public SimpleItalianTextProcessing(File posTagModel, File stopWordFile, File morphItFile) throws Exception {
-        stemmer = new italianStemmer();
+        this(posTagModel, stopWordFile, morphItFile, null);
+    }
+
+    /**
+     *
+     * @param tokenModel
+     * @param posTagModel
+     * @param stopWordFile
+     * @param sentenceModel OpenNLP sentence model, if it is null a rule-based
+     * sentence detector is used
+     * @throws Exception
+     */
+    public SimpleItalianTextProcessing(File posTagModel, File stopWordFile, File morphItFile, File sentenceModel) throws Exception {
+        if (sentenceModel != null) {
+            InputStream sentenceIn = new FileInputStream(sentenceModel);
+            this.sentenceModel = new SentenceModel(sentenceIn);
+            sentenceIn.close();
+        } else {
+            this.sentenceModel = null;
+        }
         tokenizer = new ItalianTokenizer();
         InputStream modelIn2 = new FileInputStream(posTagModel);
-        POSModel posModel = new POSModel(modelIn2);
-        tagger = new POSTaggerME(posModel);
+        posModel = new POSModel(modelIn2);
+        modelIn2.close();
         BufferedReader in = new BufferedReader(new FileReader(stopWordFile));
         while (in.ready()) {
             String line = in.readLine().trim();
@@ -129,6 +179,16 @@ public class SimpleItalianTextProcessing {
         }
     }
 
+    /**
+     * Split the text in sentences
+     *
+     * @param text Text
+     * @return Sentences
+     */
+    public String[] detectSentences(String text) {
+        return sentenceDetector.get().sentDetect(text);
+    }
+
     /**
      *
      * @param text
@@ -144,6 +204,7 @@ public class SimpleItalianTextProcessing {
      * @return
      */
     public String stem(String word) {
+        SnowballStemmer stemmer = this.stemmer.get();
         stemmer.setCurrent(word);
         if (stemmer.stem()) {
             return stemmer.getCurrent().toLowerCase();
@@ -158,6 +219,6 @@ public class SimpleItalianTextProcessing {
      * @return
      */
     public String[] posTagging(String[] tokens) {
-        return tagger.tag(tokens);
+        return tagger.get().tag(tokens);
     }
 }
@@ -38,6 +38,9 @@ import java.util.HashSet;
 import java.util.Set;
 import opennlp.tools.postag.POSModel;
 import opennlp.tools.postag.POSTaggerME;
+import opennlp.tools.sentdetect.SentenceDetector;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import opennlp.tools.sentdetect.SentenceModel;
 import opennlp.tools.tokenize.Tokenizer;
 import opennlp.tools.tokenize.TokenizerME;
 import opennlp.tools.tokenize.TokenizerModel;
@@ -46,15 +49,49 @@ import org.tartarus.snowball.ext.englishStemmer;
 
 /**
  * This class implements the following NLP steps: tokenization, pos-tagging and
- * stemming
+ * stemming. The OpenNLP models are loaded once and shared, while the OpenNLP
+ * and Snowball components, which are not thread safe, are created for each
+ * thread: an instance can be used by many threads concurrently
  *
  * @author  Basile Pierpaolo
  */
 public class SimpleTextProcessing {
 
-    private SnowballStemmer stemmer;
-    private Tokenizer tokenizer;
-    private POSTaggerME tagger;
+    private final TokenizerModel tokenizerModel;
+    private final POSModel posModel;
+    private final SentenceModel sentenceModel;
+    private final ThreadLocal<SnowballStemmer> stemmer = new ThreadLocal<SnowballStemmer>() {
+
+        @Override
+        protected SnowballStemmer initialValue() {
+            return new englishStemmer();
+        }
+    };
+    private final ThreadLocal<SentenceDetector> sentenceDetector = new ThreadLocal<SentenceDetector>() {
+
+        @Override
+        protected SentenceDetector initialValue() {
+            if (sentenceModel != null) {
+                return new SentenceDetectorME(sentenceModel);
+            } else {
+                return new RuleSentenceDetector();
+            }
+        }
+    };
+    private final ThreadLocal<Tokenizer> tokenizer = new ThreadLocal<Tokenizer>() {
+
+        @Override
+        protected Tokenizer initialValue() {
+            return new TokenizerME(tokenizerModel);
+        }
+    };
+    private final ThreadLocal<POSTaggerME> tagger = new ThreadLocal<POSTaggerME>() {
+
+        @Override
+        protected POSTaggerME initialValue() {
+            return new POSTaggerME(posModel);
+        }
+    };
     private Set<String> stopWordSet = new HashSet<String>();
 
     /**
@@ -87,13 +124,32 @@ public class SimpleTextProcessing {
      * @throws Exception
      */
     public SimpleTextProcessing(File tokenModel, File posTagModel, File stopWordFile) throws Exception {
-        stemmer = new englishStemmer();
+        this(tokenModel, posTagModel, stopWordFile, null);
+    }
+
+    /**
+     *
+     * @param tokenModel
+     * @param posTagModel
+     * @param stopWordFile
+     * @param sentenceModel OpenNLP sentence model, if it is null a rule-based
+     * sentence detector is used
+     * @throws Exception
+     */
+    public SimpleTextProcessing(File tokenModel, File posTagModel, File stopWordFile, File sentenceModel) throws Exception {
+        if (sentenceModel != null) {
+            InputStream sentenceIn = new FileInputStream(sentenceModel);
+            this.sentenceModel = new SentenceModel(sentenceIn);
+            sentenceIn.close();
+        } else {
+            this.sentenceModel = null;
+        }
         InputStream modelIn = new FileInputStream(tokenModel);
-        TokenizerModel tokenizerModel = new TokenizerModel(modelIn);
-        tokenizer = new TokenizerME(tokenizerModel);
+        tokenizerModel = new TokenizerModel(modelIn);
+        modelIn.close();
         InputStream modelIn2 = new FileInputStream(posTagModel);
-        POSModel posModel = new POSModel(modelIn2);
-        tagger = new POSTaggerME(posModel);
+        posModel = new POSModel(modelIn2);
+        modelIn2.close();
         BufferedReader in = new BufferedReader(new FileReader(stopWordFile));
         while (in.ready()) {
             String line = in.readLine().trim();
@@ -104,13 +160,23 @@ public class SimpleTextProcessing {
         in.close();
     }
 
+    /**
+     * Split the text in sentences
+     *
+     * @param text Text
+     * @return Sentences
+     */
+    public String[] detectSentences(String text) {
+        return sentenceDetector.get().sentDetect(text);
+    }
+
     /**
      *
      * @param text
      * @return
      */
     public String[] tokenize(String text) {
-        return tokenizer.tokenize(text);
+        return tokenizer.get().tokenize(text);
     }
 
     /**
@@ -119,6 +185,7 @@ public class SimpleTextProcessing {
      * @return
      */
     public String stem(String word) {
+        SnowballStemmer stemmer = this.stemmer.get();
         stemmer.setCurrent(word);
         if (stemmer.stem()) {
             return stemmer.getCurrent().toLowerCase();
@@ -133,6 +200,6 @@ public class SimpleTextProcessing {
      * @return
      */
     public String[] posTagging(String[] tokens) {
-        return tagger.tag(tokens);
+        return tagger.get().tag(tokens);
     }
 }
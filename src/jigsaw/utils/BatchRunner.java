@@ -0,0 +1,241 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Batch mode: run a document processor on several input files using a pool of
+ * workers. The input can be a directory (all the files in the directory), a
+ * file list (@file, one path per line) or a glob on file names (for example
+ * data/*.txt). Each input file has its own output file, named as the input
+ * file with the extension .jigsaw. Files with the extension .jigsaw are not
+ * taken as input from a directory or a glob, so that a run does not process
+ * the outputs of a previous run.
+ *
+ * @author Basile Pierpaolo
+ */
+public class BatchRunner {
+
+    /**
+     * Extension of the output files
+     */
+    public static final String OUTPUT_EXTENSION = ".jigsaw";
+
+    /**
+     * Processor of a single document, it must be thread safe
+     */
+    public interface DocumentProcessor {
+
+        /**
+         * Process the input file and write the result in the output file
+         *
+         * @param inputFile Input file
+         * @param outputFile Output file
+         * @throws Exception Exception
+         */
+        public void process(File inputFile, File outputFile) throws Exception;
+    }
+
+    /**
+     * Return true if the input is a directory, a file list or a glob
+     *
+     * @param input Input
+     * @return true/false
+     */
+    public static boolean isBatch(String input) {
+        return input.startsWith("@") || input.indexOf('*') >= 0 || input.indexOf('?') >= 0 || new File(input).isDirectory();
+    }
+
+    /**
+     * Return the input files
+     *
+     * @param input Directory, file list (@file) or glob
+     * @return Input files
+     * @throws IOException Exception
+     */
+    public static List<File> listInputs(String input) throws IOException {
+        List<File> files = new ArrayList<File>();
+        if (input.startsWith("@")) {
+            BufferedReader in = new BufferedReader(new FileReader(input.substring(1)));
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 0) {
+                    files.add(new File(line));
+                }
+            }
+            in.close();
+        } else if (new File(input).isDirectory()) {
+            File[] list = new File(input).listFiles(new FileFilter() {
+
+                @Override
+                public boolean accept(File file) {
+                    return file.isFile() && !file.getName().endsWith(OUTPUT_EXTENSION);
+                }
+            });
+            files.addAll(Arrays.asList(list));
+            Collections.sort(files);
+        } else {
+            File glob = new File(input);
+            Path dir = glob.getParentFile() == null ? Paths.get(".") : glob.getParentFile().toPath();
+            DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob.getName());
+            try {
+                for (Path path : stream) {
+                    if (Files.isRegularFile(path) && !path.getFileName().toString().endsWith(OUTPUT_EXTENSION)) {
+                        files.add(path.toFile());
+                    }
+                }
+            } finally {
+                stream.close();
+            }
+            Collections.sort(files);
+        }
+        return files;
+    }
+
+    /**
+     * Return the output file of an input file
+     *
+     * @param inputFile Input file
+     * @param outputDir Output directory, if it is null the output file is
+     * written in the directory of the input file
+     * @return Output file
+     */
+    public static File getOutputFile(File inputFile, File outputDir) {
+        String name = inputFile.getName() + OUTPUT_EXTENSION;
+        if (outputDir == null) {
+            return new File(inputFile.getAbsoluteFile().getParentFile(), name);
+        } else {
+            return new File(outputDir, name);
+        }
+    }
+
+    /**
+     * Return the output files of the input files
+     *
+     * @param inputs Input files
+     * @param outputDir Output directory, if it is null each output file is
+     * written in the directory of its input file
+     * @return Output files
+     * @throws IOException If two input files have the same output file
+     */
+    public static List<File> getOutputFiles(List<File> inputs, File outputDir) throws IOException {
+        List<File> outputs = new ArrayList<File>(inputs.size());
+        Map<File, File> inputByOutput = new HashMap<File, File>();
+        for (File inputFile : inputs) {
+            File outputFile = getOutputFile(inputFile, outputDir);
+            File other = inputByOutput.put(outputFile.getAbsoluteFile(), inputFile);
+            if (other != null) {
+                throw new IOException("The input files " + other + " and " + inputFile + " have the same output file: " + outputFile);
+            }
+            outputs.add(outputFile);
+        }
+        return outputs;
+    }
+
+    /**
+     * Process the input files using a pool of workers. Each document is
+     * processed by a single worker, the outputs are reported in the order of
+     * the input files.
+     *
+     * @param inputs Input files
+     * @param outputDir Output directory, null to write each output in the
+     * directory of its input
+     * @param workers Number of workers, 0 uses all the available processors
+     * @param processor Document processor
+     * @return Number of documents which have not been processed
+     * @throws InterruptedException Exception
+     * @throws IOException If two input files have the same output file
+     */
+    public static int run(List<File> inputs, File outputDir, int workers, final DocumentProcessor processor) throws InterruptedException, IOException {
+        List<File> outputs = getOutputFiles(inputs, outputDir);
+        if (workers <= 0) {
+            workers = Runtime.getRuntime().availableProcessors();
+        }
+        if (outputDir != null) {
+            outputDir.mkdirs();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<Future<?>> futures = new ArrayList<Future<?>>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            final File inputFile = inputs.get(i);
+            final File outputFile = outputs.get(i);
+            futures.add(executor.submit(new Callable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    processor.process(inputFile, outputFile);
+                    return null;
+                }
+            }));
+        }
+        executor.shutdown();
+        int failed = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            try {
+                futures.get(i).get();
+                Logger.getLogger(BatchRunner.class.getName()).log(Level.INFO, "Processed ({0}/{1}): {2}", new Object[]{i + 1, inputs.size(), inputs.get(i)});
+            } catch (ExecutionException ex) {
+                failed++;
+                Logger.getLogger(BatchRunner.class.getName()).log(Level.SEVERE, "Error to process " + inputs.get(i), ex.getCause());
+            }
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,202 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming reader which splits the input in chunks, so that the input is
+ * never loaded in memory. A chunk ends on a blank line (paragraph) or, when it
+ * reaches the chunk size, on the next sentence end (a token or a text line
+ * ending with . ! ?), and it never exceeds twice the size. A chunk size of 0
+ * reads the whole input as one chunk, blank lines included (tagged input
+ * skips them, since they have no POS-tag).
+ *
+ * @author Basile Pierpaolo
+ */
+public class ChunkReader implements Closeable {
+
+    /**
+     * Non-tokenized text
+     */
+    public static final int TEXT = 0;
+    /**
+     * One token per line
+     */
+    public static final int TOKENIZED = 1;
+    /**
+     * One token per line in the format word.postag
+     */
+    public static final int TAGGED = 2;
+    private final BufferedReader in;
+    private final int format;
+    private final int chunkSize;
+    private final StringBuilder text = new StringBuilder();
+    private final List<String> tokens = new ArrayList<String>();
+    private final List<String> tags = new ArrayList<String>();
+
+    /**
+     * Creates a new reader
+     *
+     * @param in Input
+     * @param format Format: TEXT, TOKENIZED or TAGGED
+     * @param chunkSize Chunk size in lines, 0 reads the whole input as one
+     * chunk
+     */
+    public ChunkReader(BufferedReader in, int format, int chunkSize) {
+        this.in = in;
+        this.format = format;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Open the input: "-" is the standard input, files whose name ends with
+     * .gz are decompressed
+     *
+     * @param input Input file name or "-"
+     * @return Reader
+     * @throws IOException Exception
+     */
+    public static BufferedReader open(String input) throws IOException {
+        InputStream stream;
+        if (input.equals("-")) {
+            stream = System.in;
+        } else {
+            stream = new FileInputStream(input);
+            if (input.endsWith(".gz")) {
+                stream = new GZIPInputStream(stream, 65536);
+            }
+        }
+        return new BufferedReader(new InputStreamReader(stream));
+    }
+
+    /**
+     * Return the format of the input type used by the -m option
+     *
+     * @param type tokenized, tagged or null for non-tokenized text
+     * @return Format
+     */
+    public static int getFormat(String type) {
+        if (type != null && type.equals("tokenized")) {
+            return TOKENIZED;
+        } else if (type != null && type.equals("tagged")) {
+            return TAGGED;
+        } else {
+            return TEXT;
+        }
+    }
+
+    /**
+     * Read the next chunk
+     *
+     * @return false if the input is ended
+     * @throws IOException Exception
+     */
+    public boolean next() throws IOException {
+        text.setLength(0);
+        tokens.clear();
+        tags.clear();
+        int lines = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.length() == 0 && (chunkSize > 0 || format == TAGGED)) {
+                if (chunkSize > 0 && lines > 0) {
+                    return true;
+                }
+                continue;
+            }
+            lines++;
+            boolean sentenceEnd;
+            if (format == TEXT) {
+                text.append(line).append("\n");
+                sentenceEnd = trimmed.endsWith(".") || trimmed.endsWith("!") || trimmed.endsWith("?");
+            } else {
+                String token = line;
+                if (format == TAGGED) {
+                    int index = line.lastIndexOf(".");
+                    token = line.substring(0, index);
+                    tags.add(line.substring(index + 1, line.length()));
+                }
+                tokens.add(token);
+                sentenceEnd = token.equals(".") || token.equals("!") || token.equals("?");
+            }
+            if (chunkSize > 0 && lines >= chunkSize && (sentenceEnd || lines >= 2 * chunkSize)) {
+                return true;
+            }
+        }
+        return lines > 0;
+    }
+
+    public int getFormat() {
+        return format;
+    }
+
+    /**
+     * @return Text of the chunk (TEXT format)
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * @return Tokens of the chunk (TOKENIZED and TAGGED formats)
+     */
+    public String[] getTokens() {
+        return tokens.toArray(new String[tokens.size()]);
+    }
+
+    /**
+     * @return POS-tags of the chunk (TAGGED format)
+     */
+    public String[] getTags() {
+        return tags.toArray(new String[tags.size()]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -62,6 +62,17 @@ public class DBAccess {
      * @return Connection object
      */
     public void connect() throws Exception {
+        connection = openConnection();
+    }
+
+    /**
+     * Open a new connection to database, the connection is not stored in this
+     * object
+     *
+     * @throws Exception Exception
+     * @return Connection object
+     */
+    public Connection openConnection() throws Exception {
         String driver = connectionProperties.getProperty("mwn.driver");
         Class.forName(driver).newInstance();
         StringBuilder sb = new StringBuilder();
@@ -77,8 +88,9 @@ public class DBAccess {
         if (connectionProperties.containsKey("mwn.characterEncoding")) {
             connProp.put("characterEncoding", connectionProperties.getProperty("mwn.characterEncoding"));
         }
-        connection = DriverManager.getConnection(sb.toString(), connProp);
+        Connection newConnection = DriverManager.getConnection(sb.toString(), connProp);
         Logger.getLogger(DBAccess.class.getName()).log(Level.INFO, "Connected to {0}", driver);
+        return newConnection;
     }
 
     /**
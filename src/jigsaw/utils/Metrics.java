@@ -0,0 +1,254 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jigsaw.wn.SynsetPairCache;
+import jigsaw.wn.WordNet;
+
+/**
+ * Counters and per-phase latency histograms of the JVM, exposed as the MBean
+ * jigsaw:type=Metrics. The counters are always collected, the overhead is an
+ * atomic increment for each counted event.
+ *
+ * @author Basile Pierpaolo
+ */
+public class Metrics implements MetricsMBean {
+
+    public static final String OBJECT_NAME = "jigsaw:type=Metrics";
+    private static final Metrics INSTANCE = new Metrics();
+    private final LatencyHistogram[] phases = new LatencyHistogram[PhaseTimer.getPhaseCount()];
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicLong traversals = new AtomicLong();
+    private final AtomicLong relationElementCalls = new AtomicLong();
+    private final AtomicLong glossTaggings = new AtomicLong();
+    private final AtomicLong glossCacheHits = new AtomicLong();
+    private final AtomicLong glossCacheMisses = new AtomicLong();
+    private volatile WordNet wordNet;
+    private boolean registered = false;
+
+    private Metrics() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register the MBean in the platform MBean server, the registration is
+     * done only once
+     */
+    public synchronized void register() {
+        if (!registered) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.registerMBean(this, new ObjectName(OBJECT_NAME));
+                registered = true;
+            } catch (Exception ex) {
+                Logger.getLogger(Metrics.class.getName()).log(Level.WARNING, "Error to register the metrics MBean", ex);
+            }
+        }
+    }
+
+    /**
+     * Set the WordNet whose caches are reported
+     *
+     * @param wordNet WordNet
+     */
+    public void setWordNet(WordNet wordNet) {
+        this.wordNet = wordNet;
+    }
+
+    /**
+     * Record the latency of a phase
+     *
+     * @param phase Phase (see {@link PhaseTimer})
+     * @param nanos Time in nanoseconds
+     */
+    public void recordPhase(int phase, long nanos) {
+        phases[phase].record(nanos);
+    }
+
+    public void addTokens(int n) {
+        tokens.addAndGet(n);
+    }
+
+    public void countTraversal() {
+        traversals.incrementAndGet();
+    }
+
+    public void countRelationElement() {
+        relationElementCalls.incrementAndGet();
+    }
+
+    public void countGlossTagging() {
+        glossTaggings.incrementAndGet();
+    }
+
+    public void countGlossCache(boolean hit) {
+        if (hit) {
+            glossCacheHits.incrementAndGet();
+        } else {
+            glossCacheMisses.incrementAndGet();
+        }
+    }
+
+    @Override
+    public long getTokens() {
+        return tokens.get();
+    }
+
+    @Override
+    public long getTraversals() {
+        return traversals.get();
+    }
+
+    @Override
+    public long getRelationElementCalls() {
+        return relationElementCalls.get();
+    }
+
+    @Override
+    public long getGlossTaggings() {
+        return glossTaggings.get();
+    }
+
+    @Override
+    public double getDistanceCacheHitRatio() {
+        WordNet wn = wordNet;
+        return wn == null ? 0 : getHitRatio(wn.getDepthCache());
+    }
+
+    @Override
+    public double getCommonCacheHitRatio() {
+        WordNet wn = wordNet;
+        return wn == null ? 0 : getHitRatio(wn.getCommonCache());
+    }
+
+    @Override
+    public double getLookupCacheHitRatio() {
+        WordNet wn = wordNet;
+        return wn == null || wn.getLookupCache() == null ? 0 : wn.getLookupCache().getHitRatio();
+    }
+
+    private static double getHitRatio(SynsetPairCache<?> cache) {
+        return cache == null ? 0 : cache.getHitRatio();
+    }
+
+    @Override
+    public double getGlossCacheHitRatio() {
+        long h = glossCacheHits.get();
+        long requests = h + glossCacheMisses.get();
+        return requests == 0 ? 0 : (double) h / (double) requests;
+    }
+
+    @Override
+    public String[] getPhaseNames() {
+        String[] names = new String[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            names[i] = PhaseTimer.getName(i);
+        }
+        return names;
+    }
+
+    @Override
+    public long[] getPhaseCounts() {
+        long[] r = new long[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            r[i] = phases[i].getCount();
+        }
+        return r;
+    }
+
+    @Override
+    public long[] getPhaseTotalMillis() {
+        long[] r = new long[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            r[i] = phases[i].getTotalNanos() / 1000000;
+        }
+        return r;
+    }
+
+    @Override
+    public long[] getPhaseMedianMicros() {
+        long[] r = new long[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            r[i] = phases[i].getPercentileMicros(0.5);
+        }
+        return r;
+    }
+
+    @Override
+    public long[] getPhase99thPercentileMicros() {
+        long[] r = new long[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            r[i] = phases[i].getPercentileMicros(0.99);
+        }
+        return r;
+    }
+
+    @Override
+    public String histogram(String phase) {
+        for (int i = 0; i < phases.length; i++) {
+            if (PhaseTimer.getName(i).equals(phase)) {
+                return phases[i].toString();
+            }
+        }
+        throw new IllegalArgumentException("Unknown phase: " + phase);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i].reset();
+        }
+        tokens.set(0);
+        traversals.set(0);
+        relationElementCalls.set(0);
+        glossTaggings.set(0);
+        glossCacheHits.set(0);
+        glossCacheMisses.set(0);
+    }
+}
@@ -0,0 +1,80 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.utils;
+
+/**
+ * Management interface of the JIGSAW metrics. The phase attributes are arrays
+ * in the same order of PhaseNames.
+ *
+ * @author Basile Pierpaolo
+ */
+public interface MetricsMBean {
+
+    public long getTokens();
+
+    public long getTraversals();
+
+    public long getRelationElementCalls();
+
+    public long getGlossTaggings();
+
+    public double getDistanceCacheHitRatio();
+
+    public double getCommonCacheHitRatio();
+
+    public double getLookupCacheHitRatio();
+
+    public double getGlossCacheHitRatio();
+
+    public String[] getPhaseNames();
+
+    public long[] getPhaseCounts();
+
+    public long[] getPhaseTotalMillis();
+
+    public long[] getPhaseMedianMicros();
+
+    public long[] getPhase99thPercentileMicros();
+
+    /**
+     * @param phase Phase name
+     * @return The latency histogram of the phase
+     */
+    public String histogram(String phase);
+
+    public void reset();
+}
@@ -0,0 +1,113 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Wall time spent in each phase of the disambiguation. Times are accumulated
+ * in nanoseconds and the timer can be shared by several threads.
+ *
+ * @author Basile Pierpaolo
+ */
+public class PhaseTimer {
+
+    public static final int TOKENIZE = 0;
+    public static final int TAG = 1;
+    public static final int LEMMATIZE = 2;
+    public static final int LOOKUP = 3;
+    public static final int VERBS = 4;
+    public static final int NOUNS = 5;
+    public static final int ADJ_ADV = 6;
+    private static final String[] NAMES = new String[]{"tokenize", "tag", "lemmatize", "lookup", "verbs", "nouns", "adj/adv"};
+    private final AtomicLongArray times = new AtomicLongArray(NAMES.length);
+
+    /**
+     * Add time to a phase
+     *
+     * @param phase Phase
+     * @param nanos Time in nanoseconds
+     */
+    public void add(int phase, long nanos) {
+        times.addAndGet(phase, nanos);
+    }
+
+    /**
+     * @param phase Phase
+     * @return Time spent in the phase in nanoseconds
+     */
+    public long getTime(int phase) {
+        return times.get(phase);
+    }
+
+    /**
+     * @return Total time spent in all phases in nanoseconds
+     */
+    public long getTotalTime() {
+        long total = 0;
+        for (int i = 0; i < NAMES.length; i++) {
+            total += times.get(i);
+        }
+        return total;
+    }
+
+    public void reset() {
+        for (int i = 0; i < NAMES.length; i++) {
+            times.set(i, 0);
+        }
+    }
+
+    public static int getPhaseCount() {
+        return NAMES.length;
+    }
+
+    public static String getName(int phase) {
+        return NAMES[phase];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(NAMES[i]).append(": ").append(times.get(i) / 1000000).append(" ms");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,169 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.wn;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distance oracle on a relation graph (e.g. the hypernym DAG). Each synset is
+ * labelled with its ancestors within a max depth: the ancestor offsets are
+ * sorted and stored with the depth of the first visit and the min depth, so
+ * the distance of a pair is a merge of two labels instead of a scan of the
+ * ancestor list of a synset for each ancestor of the other one.
+ * The answers are the same of the list scan in getDepthByOffset: for each
+ * ancestor of s2 the depth in the ancestors of s1 is the depth of its first
+ * visit. The labels are kept in a bounded LRU cache.
+ *
+ * @author Basile Pierpaolo
+ */
+public class DistanceOracle {
+
+    /**
+     * Source of the ancestors of a synset
+     */
+    public interface AncestorSource {
+
+        /**
+         * Return the ancestors of a synset in visit order
+         *
+         * @param offset Synset offset
+         * @param maxDepth Max depth
+         * @return List of ancestors
+         */
+        public List<WnNode> getAncestors(int offset, int maxDepth);
+    }
+    private final AncestorSource source;
+    private final Map<Long, int[]> labels;
+
+    /**
+     * Creates a new oracle
+     *
+     * @param source Source of the ancestors
+     * @param capacity Number of labels kept in memory, 0 disables the cache
+     */
+    public DistanceOracle(AncestorSource source, int capacity) {
+        this.source = source;
+        if (capacity > 0) {
+            this.labels = new ConcurrentLinkedHashMap.Builder<Long, int[]>().maximumWeightedCapacity(capacity).build();
+        } else {
+            this.labels = null;
+        }
+    }
+
+    /**
+     * Compute the min-distance between two synsets
+     *
+     * @param s1 First synset offset
+     * @param s2 Second synset offset
+     * @param maxDepth Max depth
+     * @param notFound Value returned if the synsets have no common ancestor
+     * (or if all the distances are greater than notFound)
+     * @return Distance
+     */
+    public int getDistance(int s1, int s2, int maxDepth, int notFound) {
+        int[] l1 = getLabel(s2, maxDepth);
+        int[] l2 = getLabel(s1, maxDepth);
+        int min = notFound;
+        int p = 0, q = 0;
+        while (p < l1.length && q < l2.length) {
+            if (l1[p] < l2[q]) {
+                p += 3;
+            } else if (l1[p] > l2[q]) {
+                q += 3;
+            } else {
+                int d = l1[p + 2] + l2[q + 1];
+                if (d <= min) {
+                    min = d;
+                }
+                p += 3;
+                q += 3;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Return the label of a synset: (ancestor offset, first depth, min depth)
+     * triples sorted by offset
+     */
+    private int[] getLabel(int offset, int maxDepth) {
+        if (labels == null) {
+            return buildLabel(source.getAncestors(offset, maxDepth));
+        }
+        Long key = ((long) offset << 8) | (maxDepth & 0xff);
+        int[] label = labels.get(key);
+        if (label == null) {
+            label = buildLabel(source.getAncestors(offset, maxDepth));
+            labels.put(key, label);
+        }
+        return label;
+    }
+
+    static int[] buildLabel(List<WnNode> ancestors) {
+        int n = ancestors.size();
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = ((long) ancestors.get(i).getOffset() << 32) | i;
+        }
+        Arrays.sort(sorted);
+        int[] label = new int[3 * n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            WnNode node = ancestors.get((int) sorted[i]);
+            if (size > 0 && label[size - 3] == node.getOffset()) {
+                if (node.getDepth() < label[size - 1]) {
+                    label[size - 1] = node.getDepth();
+                }
+            } else {
+                label[size] = node.getOffset();
+                label[size + 1] = node.getDepth();
+                label[size + 2] = node.getDepth();
+                size += 3;
+            }
+        }
+        return size == label.length ? label : Arrays.copyOf(label, size);
+    }
+
+    public void clear() {
+        if (labels != null) {
+            labels.clear();
+        }
+    }
+}
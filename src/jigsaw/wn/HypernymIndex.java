@@ -0,0 +1,475 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.wn;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class stores the hypernym closure of a set of synsets. For each synset
+ * the ancestors reachable within maxDepth+1 steps are stored in primitive
+ * arrays, in the same order produced by
+ * {@link WordNet#getAllRelationNode(String, String, net.sf.extjwnl.data.PointerType, int, int)}.
+ * The ancestors of each synset are sorted by offset (and by visit order for the
+ * same offset), so depth, common subsumer and is-a queries are merges of two
+ * sorted arrays.
+ *
+ * @author Basile Pierpaolo
+ */
+public class HypernymIndex {
+
+    private final int maxDepth;
+    /**
+     * Synset offsets (sorted)
+     */
+    private final int[] synsets;
+    /**
+     * Start of the ancestors of each synset, synsets.length+1 elements
+     */
+    private final int[] start;
+    /**
+     * Ancestor offsets
+     */
+    private final int[] ancestors;
+    /**
+     * Ancestor depths
+     */
+    private final byte[] depths;
+    /**
+     * Position of the ancestor in the visit order
+     */
+    private final int[] order;
+
+    private HypernymIndex(int maxDepth, int[] synsets, int[] start, int[] ancestors, byte[] depths, int[] order) {
+        this.maxDepth = maxDepth;
+        this.synsets = synsets;
+        this.start = start;
+        this.ancestors = ancestors;
+        this.depths = depths;
+        this.order = order;
+    }
+
+    /**
+     * Build the index
+     *
+     * @param offsets Synset offsets (sorted)
+     * @param parents Hypernym offsets of each synset
+     * @param maxDepth Max depth
+     * @return The index
+     */
+    public static HypernymIndex build(int[] offsets, int[][] parents, int maxDepth) {
+        int[] start = new int[offsets.length + 1];
+        Buffer buffer = new Buffer();
+        Buffer visit = new Buffer();
+        for (int i = 0; i < offsets.length; i++) {
+            start[i] = buffer.size;
+            visit.size = 0;
+            visit(offsets, parents, i, 1, maxDepth + 1, visit);
+            addSorted(buffer, visit);
+        }
+        start[offsets.length] = buffer.size;
+        return new HypernymIndex(maxDepth, offsets, start,
+                Arrays.copyOf(buffer.offsets, buffer.size),
+                Arrays.copyOf(buffer.depths, buffer.size),
+                Arrays.copyOf(buffer.order, buffer.size));
+    }
+
+    /**
+     * Build the index from the ancestors of each synset, as returned by
+     * {@link WordNet#getAllRelationNode(int, String, net.sf.extjwnl.data.PointerType, int, int)}
+     * with depth maxDepth
+     *
+     * @param offsets Synset offsets (sorted)
+     * @param ancestors Ancestors of each synset in visit order
+     * @param maxDepth Max depth
+     * @return The index
+     */
+    public static HypernymIndex build(int[] offsets, List<List<WnNode>> ancestors, int maxDepth) {
+        int[] start = new int[offsets.length + 1];
+        Buffer buffer = new Buffer();
+        Buffer visit = new Buffer();
+        for (int i = 0; i < offsets.length; i++) {
+            start[i] = buffer.size;
+            visit.size = 0;
+            List<WnNode> list = ancestors.get(i);
+            for (int k = 0; k < list.size(); k++) {
+                visit.add(list.get(k).getOffset(), (byte) list.get(k).getDepth(), k);
+            }
+            addSorted(buffer, visit);
+        }
+        start[offsets.length] = buffer.size;
+        return new HypernymIndex(maxDepth, offsets, start,
+                Arrays.copyOf(buffer.offsets, buffer.size),
+                Arrays.copyOf(buffer.depths, buffer.size),
+                Arrays.copyOf(buffer.order, buffer.size));
+    }
+
+    /**
+     * Append the visited ancestors to the buffer sorted by offset and visit
+     * order
+     */
+    private static void addSorted(Buffer buffer, Buffer visit) {
+        long[] sorted = new long[visit.size];
+        for (int k = 0; k < visit.size; k++) {
+            sorted[k] = ((long) visit.offsets[k] << 32) | k;
+        }
+        Arrays.sort(sorted);
+        for (int k = 0; k < sorted.length; k++) {
+            int pos = (int) sorted[k];
+            buffer.add(visit.offsets[pos], visit.depths[pos], pos);
+        }
+    }
+
+    private static void visit(int[] offsets, int[][] parents, int index, int depth, int limit, Buffer visit) {
+        int[] p = parents[index];
+        for (int i = 0; p != null && i < p.length; i++) {
+            visit.add(p[i], (byte) depth, visit.size);
+            if (depth < limit) {
+                int parent = Arrays.binarySearch(offsets, p[i]);
+                if (parent >= 0) {
+                    visit(offsets, parents, parent, depth + 1, limit, visit);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the max depth covered by the index
+     *
+     * @return Max depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Return the number of synsets
+     *
+     * @return Number of synsets
+     */
+    public int size() {
+        return synsets.length;
+    }
+
+    /**
+     * Compute the min-distance between two synsets. This is the same value
+     * computed by getDepthByOffset in {@link WordNet}.
+     *
+     * @param s1 First synset offset
+     * @param s2 Second synset offset
+     * @param maxDepth Max depth
+     * @param notFound Value returned if the synsets have no common ancestor
+     * @return Distance
+     */
+    public int getDistance(int s1, int s2, int maxDepth, int notFound) {
+        int min = notFound;
+        int i1 = Arrays.binarySearch(synsets, s1);
+        int i2 = Arrays.binarySearch(synsets, s2);
+        if (i1 < 0 || i2 < 0) {
+            return min;
+        }
+        int limit = maxDepth + 1;
+        int p = start[i1], pe = start[i1 + 1];
+        int q = start[i2], qe = start[i2 + 1];
+        while (p < pe && q < qe) {
+            int a = ancestors[p];
+            int b = ancestors[q];
+            if (a < b) {
+                p = next(p, pe);
+            } else if (a > b) {
+                q = next(q, qe);
+            } else {
+                int pn = next(p, pe);
+                int qn = next(q, qe);
+                int first = first(p, pn, limit);
+                int lowest = lowest(q, qn, limit);
+                if (first != -1 && lowest != -1) {
+                    int d = depths[first] + depths[lowest];
+                    if (d <= min) {
+                        min = d;
+                    }
+                }
+                p = pn;
+                q = qn;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Return the common synset in relation with o1 and o2 limiting the search
+     * to maxDepth. This is the same value computed by getCommon in
+     * {@link WordNet}.
+     *
+     * @param o1 Synset offset
+     * @param o2 Synset offset
+     * @param maxDepth Max depth
+     * @param notFound Depth returned if the synsets have no common ancestor
+     * @return An array which contains the depth and the offset of the common
+     * synset (-1 if the synsets have no common ancestor)
+     */
+    public int[] getCommon(int o1, int o2, int maxDepth, int notFound) {
+        int[] result = new int[]{notFound, -1};
+        int i1 = Arrays.binarySearch(synsets, o1);
+        int i2 = Arrays.binarySearch(synsets, o2);
+        if (i1 < 0 || i2 < 0) {
+            return result;
+        }
+        merge(i1, i2, false, 0, maxDepth + 1, result, 0);
+        return result;
+    }
+
+    /**
+     * Compute in a single merge of the ancestors of s1 and s2 the values of
+     * {@link #getDistance(int, int, int, int)} with distanceDepth and
+     * {@link #getCommon(int, int, int, int)} with commonDepth
+     *
+     * @param s1 First synset offset
+     * @param s2 Second synset offset
+     * @param distanceDepth Max depth of the distance
+     * @param distanceNotFound Distance returned if the synsets have no common
+     * ancestor
+     * @param commonDepth Max depth of the common synset
+     * @param commonNotFound Depth returned if the synsets have no common
+     * ancestor
+     * @return An array which contains the distance, the depth and the offset
+     * of the common synset (-1 if the synsets have no common ancestor)
+     */
+    public int[] getDistanceAndCommon(int s1, int s2, int distanceDepth, int distanceNotFound, int commonDepth, int commonNotFound) {
+        int[] result = new int[]{distanceNotFound, commonNotFound, -1};
+        int i1 = Arrays.binarySearch(synsets, s1);
+        int i2 = Arrays.binarySearch(synsets, s2);
+        if (i1 < 0 || i2 < 0) {
+            return result;
+        }
+        merge(i1, i2, true, distanceDepth + 1, commonDepth + 1, result, 1);
+        return result;
+    }
+
+    /**
+     * Merge the ancestors of the synsets at the positions i1 and i2. The depth
+     * and the offset of the common synset are saved in result[c] and
+     * result[c + 1] (result[c] must contain the depth returned if the synsets
+     * have no common ancestor). If distance is true also the distance is
+     * saved in result[0] (which must contain the distance returned if the
+     * synsets have no common ancestor).
+     */
+    private void merge(int i1, int i2, boolean distance, int distanceLimit, int limit, int[] result, int c) {
+        int min = result[0];
+        //best match on the first list: depth, visit order, offset and depth in the second list
+        int depth1 = result[c], order1 = Integer.MAX_VALUE, offset1 = -1, ref1 = 0;
+        //best match on the second list
+        int depth2 = result[c], order2 = Integer.MAX_VALUE, offset2 = -1, ref2 = 0;
+        int p = start[i1], pe = start[i1 + 1];
+        int q = start[i2], qe = start[i2 + 1];
+        while (p < pe && q < qe) {
+            int a = ancestors[p];
+            int b = ancestors[q];
+            if (a < b) {
+                p = next(p, pe);
+            } else if (a > b) {
+                q = next(q, qe);
+            } else {
+                int pn = next(p, pe);
+                int qn = next(q, qe);
+                if (distance) {
+                    int first = first(p, pn, distanceLimit);
+                    int lowest = lowest(q, qn, distanceLimit);
+                    if (first != -1 && lowest != -1) {
+                        int d = depths[first] + depths[lowest];
+                        if (d <= min) {
+                            min = d;
+                        }
+                    }
+                }
+                int first1 = first(p, pn, limit);
+                int first2 = first(q, qn, limit);
+                if (first1 != -1 && first2 != -1) {
+                    int lowest1 = lowest(p, pn, limit);
+                    int lowest2 = lowest(q, qn, limit);
+                    if (depths[lowest1] < depth1 || (offset1 != -1 && depths[lowest1] == depth1 && order[lowest1] < order1)) {
+                        depth1 = depths[lowest1];
+                        order1 = order[lowest1];
+                        offset1 = a;
+                        ref1 = depths[first2];
+                    }
+                    if (depths[lowest2] < depth2 || (offset2 != -1 && depths[lowest2] == depth2 && order[lowest2] < order2)) {
+                        depth2 = depths[lowest2];
+                        order2 = order[lowest2];
+                        offset2 = a;
+                        ref2 = depths[first1];
+                    }
+                }
+                p = pn;
+                q = qn;
+            }
+        }
+        if (distance) {
+            result[0] = min;
+        }
+        if (offset1 != -1 && offset2 != -1) {
+            if (depth1 < depth2) {
+                result[c] = depth2 + ref2;
+                result[c + 1] = offset2;
+            } else {
+                result[c] = depth1 + ref1;
+                result[c + 1] = offset1;
+            }
+        }
+    }
+
+    /**
+     * Return true if ancestor is reachable from synset within maxDepth+1 steps
+     *
+     * @param ancestor Ancestor offset
+     * @param synset Synset offset
+     * @return true/false
+     */
+    public boolean isAncestor(int ancestor, int synset) {
+        int i = Arrays.binarySearch(synsets, synset);
+        if (i < 0) {
+            return false;
+        }
+        return Arrays.binarySearch(ancestors, start[i], start[i + 1], ancestor) >= 0;
+    }
+
+    private int next(int p, int end) {
+        int offset = ancestors[p];
+        p++;
+        while (p < end && ancestors[p] == offset) {
+            p++;
+        }
+        return p;
+    }
+
+    private int first(int from, int to, int limit) {
+        for (int i = from; i < to; i++) {
+            if (depths[i] <= limit) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lowest(int from, int to, int limit) {
+        int result = -1;
+        for (int i = from; i < to; i++) {
+            if (depths[i] <= limit && (result == -1 || depths[i] < depths[result])) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Write the index
+     *
+     * @param out Output stream
+     * @throws IOException
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(maxDepth);
+        out.writeInt(synsets.length);
+        for (int i = 0; i < synsets.length; i++) {
+            out.writeInt(synsets[i]);
+        }
+        for (int i = 0; i < start.length; i++) {
+            out.writeInt(start[i]);
+        }
+        out.writeInt(ancestors.length);
+        for (int i = 0; i < ancestors.length; i++) {
+            out.writeInt(ancestors[i]);
+        }
+        out.write(depths);
+        for (int i = 0; i < order.length; i++) {
+            out.writeInt(order[i]);
+        }
+    }
+
+    /**
+     * Read the index
+     *
+     * @param in Input stream
+     * @return The index
+     * @throws IOException
+     */
+    public static HypernymIndex read(DataInputStream in) throws IOException {
+        int maxDepth = in.readInt();
+        int[] synsets = new int[in.readInt()];
+        for (int i = 0; i < synsets.length; i++) {
+            synsets[i] = in.readInt();
+        }
+        int[] start = new int[synsets.length + 1];
+        for (int i = 0; i < start.length; i++) {
+            start[i] = in.readInt();
+        }
+        int[] ancestors = new int[in.readInt()];
+        for (int i = 0; i < ancestors.length; i++) {
+            ancestors[i] = in.readInt();
+        }
+        byte[] depths = new byte[ancestors.length];
+        in.readFully(depths);
+        int[] order = new int[ancestors.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = in.readInt();
+        }
+        return new HypernymIndex(maxDepth, synsets, start, ancestors, depths, order);
+    }
+
+    private static class Buffer {
+
+        private int size = 0;
+        private int[] offsets = new int[1024];
+        private byte[] depths = new byte[1024];
+        private int[] order = new int[1024];
+
+        private void add(int offset, byte depth, int position) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                depths = Arrays.copyOf(depths, size * 2);
+                order = Arrays.copyOf(order, size * 2);
+            }
+            offsets[size] = offset;
+            depths[size] = depth;
+            order[size] = position;
+            size++;
+        }
+    }
+}
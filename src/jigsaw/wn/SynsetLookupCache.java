@@ -0,0 +1,134 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.wn;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of the synsets of a (word, pos-tag) pair. Words without
+ * synsets are stored as misses, so that neither a known word nor an unknown
+ * word is looked up twice in the dictionary. Errors of the dictionary are
+ * never stored.
+ *
+ * @author Basile Pierpaolo
+ */
+public class SynsetLookupCache {
+
+    /**
+     * Value stored for the words without synsets
+     */
+    public static final int[] MISS = new int[0];
+    private final Map<String, int[]> map;
+    private final int capacity;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new cache
+     *
+     * @param capacity Max number of (word, pos-tag) pairs stored in the cache
+     */
+    public SynsetLookupCache(int capacity) {
+        this.capacity = capacity;
+        this.map = new ConcurrentLinkedHashMap.Builder<String, int[]>().maximumWeightedCapacity(capacity).build();
+    }
+
+    /**
+     * Return the synsets stored for the word
+     *
+     * @param word Word
+     * @param pos POS-tag
+     * @return The synsets, {@link #MISS} if the word has no synsets or null
+     * if the word is not in the cache
+     */
+    public int[] get(String word, String pos) {
+        int[] syns = map.get(key(word, pos));
+        if (syns != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return syns;
+    }
+
+    /**
+     * Store the synsets of the word
+     *
+     * @param word Word
+     * @param pos POS-tag
+     * @param syns Synsets, {@link #MISS} if the word has no synsets
+     */
+    public void put(String word, String pos, int[] syns) {
+        map.put(key(word, pos), syns);
+    }
+
+    private static String key(String word, String pos) {
+        return pos + "\t" + word;
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The ratio between hits and requests, 0 if there are no requests
+     */
+    public double getHitRatio() {
+        long h = hits.get();
+        long requests = h + misses.get();
+        return requests == 0 ? 0 : (double) h / (double) requests;
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size() + "/" + capacity + ", hits=" + getHits() + ", misses=" + getMisses() + ", hit ratio=" + getHitRatio();
+    }
+}
@@ -0,0 +1,191 @@
+/**
+   Copyright (c) 2012, the JIGSAW AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+ * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+ * Neither the name of the University of Bari nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+   * 
+   * GNU GENERAL PUBLIC LICENSE - Version 3, 29 June 2007
+ **/
+package jigsaw.wn;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of values computed on a pair of synsets (e.g. distance
+ * or common subsumer). The key is (synset1, synset2, pos, relation, depth).
+ * The cache is thread-safe and counts hits and misses.
+ *
+ * @author Basile Pierpaolo
+ */
+public class SynsetPairCache<V> {
+
+    private final Map<Key, V> map;
+    private final int capacity;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new cache
+     *
+     * @param capacity Max number of pairs stored in the cache
+     */
+    public SynsetPairCache(int capacity) {
+        this.capacity = capacity;
+        this.map = new ConcurrentLinkedHashMap.Builder<Key, V>().maximumWeightedCapacity(capacity).build();
+    }
+
+    /**
+     * Return the value stored for the pair
+     *
+     * @param s1 First synset
+     * @param s2 Second synset
+     * @param pos POS-tag
+     * @param relation Relation type
+     * @param depth Max depth
+     * @return The value or null if the pair is not in the cache
+     */
+    public V get(int s1, int s2, String pos, Object relation, int depth) {
+        V value = map.get(new Key(s1, s2, pos, relation, depth));
+        if (value == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Store the value computed for the pair
+     *
+     * @param s1 First synset
+     * @param s2 Second synset
+     * @param pos POS-tag
+     * @param relation Relation type
+     * @param depth Max depth
+     * @param value Value
+     */
+    public void put(int s1, int s2, String pos, Object relation, int depth, V value) {
+        map.put(new Key(s1, s2, pos, relation, depth), value);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The ratio between hits and requests, 0 if there are no requests
+     */
+    public double getHitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        if (total == 0) {
+            return 0;
+        }
+        return (double) h / (double) total;
+    }
+
+    /**
+     * Remove all the pairs and reset the statistics
+     */
+    public void clear() {
+        map.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size() + "/" + capacity + ", hits=" + getHits() + ", misses=" + getMisses() + ", hit ratio=" + getHitRatio();
+    }
+
+    private static final class Key {
+
+        private final int s1;
+        private final int s2;
+        private final String pos;
+        private final Object relation;
+        private final int depth;
+
+        Key(int s1, int s2, String pos, Object relation, int depth) {
+            this.s1 = s1;
+            this.s2 = s2;
+            this.pos = pos;
+            this.relation = relation;
+            this.depth = depth;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            if (this.s1 != other.s1 || this.s2 != other.s2 || this.depth != other.depth) {
+                return false;
+            }
+            if ((this.pos == null) ? (other.pos != null) : !this.pos.equals(other.pos)) {
+                return false;
+            }
+            if ((this.relation == null) ? (other.relation != null) : !this.relation.equals(other.relation)) {
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 31 * hash + this.s1;
+            hash = 31 * hash + this.s2;
+            hash = 31 * hash + (this.pos != null ? this.pos.hashCode() : 0);
+            hash = 31 * hash + (this.relation != null ? this.relation.hashCode() : 0);
+            hash = 31 * hash + this.depth;
+            return hash;
+        }
+    }
+}
@@ -45,7 +45,7 @@ public class WnNode {
     /**
      * Synset offset
      */
-    private String offset;
+    private int offset;
 
     @Override
     public boolean equals(Object obj) {
@@ -56,7 +56,7 @@ public class WnNode {
             return false;
         }
         final WnNode other = (WnNode) obj;
-        if ((this.getOffset() == null) ? (other.getOffset() != null) : !this.offset.equals(other.offset)) {
+        if (this.offset != other.offset) {
             return false;
         }
         return true;
@@ -65,7 +65,7 @@ public class WnNode {
     @Override
     public int hashCode() {
         int hash = 3;
-        hash = 89 * hash + (this.getOffset() != null ? this.getOffset().hashCode() : 0);
+        hash = 89 * hash + this.offset;
         return hash;
     }
     
@@ -90,14 +90,14 @@ public class WnNode {
     /**
      * @return the offset
      */
-    public String getOffset() {
+    public int getOffset() {
         return offset;
     }
 
     /**
      * @param offset the offset to set
      */
-    public void setOffset(String offset) {
+    public void setOffset(int offset) {
         this.offset = offset;
     }
 
@@ -36,12 +36,23 @@
  **/
 package jigsaw.wn;
 
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.*;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import jigsaw.utils.AtomicFile;
+import jigsaw.utils.Metrics;
 import net.sf.extjwnl.data.*;
 import net.sf.extjwnl.dictionary.Dictionary;
 
@@ -57,6 +68,21 @@ public class WordNet {
      */
     public static int MAX_DEPTH = 18;
     private Dictionary dictionary = null;
+    /**
+     * The JWNL dictionary caches are not thread-safe, all the dictionary
+     * lookups are done holding this lock
+     */
+    private final Object dictionaryLock = new Object();
+    private HypernymIndex nounHypernymIndex = null;
+    private HypernymIndex verbHypernymIndex = null;
+    private SynsetPairCache<Integer> depthCache = null;
+    private SynsetPairCache<int[]> commonCache = null;
+    private SynsetLookupCache lookupCache = null;
+    private final ConcurrentHashMap<String, DistanceOracle> distanceOracles = new ConcurrentHashMap<String, DistanceOracle>();
+    private int labelCacheSize = 0;
+    private long fingerprint = 0;
+    private static final int INDEX_MAGIC = 0x4857494e;
+    private static final int INDEX_VERSION = 2;
 
     /**
      * Creates a new instance 
@@ -67,14 +93,16 @@ public class WordNet {
 
     public String lemmatize(String word, String pos) throws Exception {
         IndexWord indexWord = null;
-        if (pos.equals("n")) {
-            indexWord = dictionary.getMorphologicalProcessor().lookupBaseForm(POS.NOUN, word);
-        } else if (pos.equals("v")) {
-            indexWord = dictionary.getMorphologicalProcessor().lookupBaseForm(POS.VERB, word);
-        } else if (pos.equals("a")) {
-            indexWord = dictionary.getMorphologicalProcessor().lookupBaseForm(POS.ADJECTIVE, word);
-        } else if (pos.equals("r")) {
-            indexWord = dictionary.getMorphologicalProcessor().lookupBaseForm(POS.ADVERB, word);
+        synchronized (dictionaryLock) {
+            if (pos.equals("n")) {
+                indexWord = dictionary.getMorphologicalProcessor().lookupBaseForm(POS.NOUN, word);
+            } else if (pos.equals("v")) {
+                indexWord = dictionary.getMorphologicalProcessor().lookupBaseForm(POS.VERB, word);
+            } else if (pos.equals("a")) {
+                indexWord = dictionary.getMorphologicalProcessor().lookupBaseForm(POS.ADJECTIVE, word);
+            } else if (pos.equals("r")) {
+                indexWord = dictionary.getMorphologicalProcessor().lookupBaseForm(POS.ADVERB, word);
+            }
         }
         if (indexWord != null) {
             return indexWord.getLemma().toLowerCase();
@@ -93,24 +121,15 @@ public class WordNet {
      * @throws Exception Exception
      * @return Distance
      */
-    public int getDepthByOffset(String s1, String s2, String pos, PointerType relation) {
+    public int getDepthByOffset(int s1, int s2, String pos, PointerType relation) {
+        Metrics.getInstance().countTraversal();
         try {
-
-            List<WnNode> result1 = getAllRelationNode(s2, pos, relation, MAX_DEPTH, MAX_DEPTH);
-            List<WnNode> result2 = getAllRelationNode(s1, pos, relation, MAX_DEPTH, MAX_DEPTH);
-
-            int min = 2 * MAX_DEPTH;
-            for (int i = 0; i < result1.size(); i++) {
-                int index = result2.indexOf(result1.get(i));
-                if (index != -1) {
-                    int depth = result2.get(index).getDepth() + result1.get(i).getDepth();
-                    if (depth <= min) {
-                        min = depth;
-                    }
-                }
+            HypernymIndex hypernymIndex = getHypernymIndex(pos, relation, MAX_DEPTH);
+            if (hypernymIndex != null) {
+                return hypernymIndex.getDistance(s1, s2, MAX_DEPTH, 2 * MAX_DEPTH);
             }
 
-            return min;
+            return getDistanceOracle(pos, relation).getDistance(s1, s2, MAX_DEPTH, 2 * MAX_DEPTH);
         } catch (Exception ex) {
             Logger.getLogger(WordNet.class.getName()).log(Level.SEVERE, "Error to compute depth: " + s1 + ", " + s2 + ", pos: " + pos, ex);
             return MAX_DEPTH + 1;
@@ -128,28 +147,30 @@ public class WordNet {
      * @throws Exception Exception
      * @return Distance
      */
-    public int getDepthByOffset(String s1, String s2, String pos, PointerType relation, int maxDepth) {
+    public int getDepthByOffset(int s1, int s2, String pos, PointerType relation, int maxDepth) {
+        if (depthCache == null) {
+            return computeDepthByOffset(s1, s2, pos, relation, maxDepth);
+        }
+        Integer d = depthCache.get(s1, s2, pos, relation, maxDepth);
+        if (d == null) {
+            d = computeDepthByOffset(s1, s2, pos, relation, maxDepth);
+            depthCache.put(s1, s2, pos, relation, maxDepth, d);
+        }
+        return d;
+    }
+
+    private int computeDepthByOffset(int s1, int s2, String pos, PointerType relation, int maxDepth) {
+        Metrics.getInstance().countTraversal();
         try {
             if (maxDepth < 0) {
                 Logger.getLogger(WordNet.class.getName()).log(Level.WARNING, "Error to compute depth: depth < 0: {0}", maxDepth);
                 return MAX_DEPTH + 1;
             }
-            List<WnNode> result1 = getAllRelationNode(s2, pos, relation, maxDepth, maxDepth);
-            List<WnNode> result2 = getAllRelationNode(s1, pos, relation, maxDepth, maxDepth);
-
-
-            int min = 2 * MAX_DEPTH;
-            for (int i = 0; i < result1.size(); i++) {
-                int index = result2.indexOf(result1.get(i));
-                if (index != -1) {
-                    int depth = result2.get(index).getDepth() + result1.get(i).getDepth();
-                    if (depth <= min) {
-                        min = depth;
-                    }
-                }
+            HypernymIndex hypernymIndex = getHypernymIndex(pos, relation, maxDepth);
+            if (hypernymIndex != null) {
+                return hypernymIndex.getDistance(s1, s2, maxDepth, 2 * MAX_DEPTH);
             }
-
-            return min;
+            return getDistanceOracle(pos, relation).getDistance(s1, s2, maxDepth, 2 * MAX_DEPTH);
         } catch (Exception ex) {
             Logger.getLogger(WordNet.class.getName()).log(Level.SEVERE, "Error to compute depth (max depth): " + s1 + ", " + s2 + ", pos: " + pos, ex);
             return MAX_DEPTH + 1;
@@ -158,6 +179,15 @@ public class WordNet {
 
     private IndexWord returnIndexWord(String word, String pos, boolean lookup) {
         try {
+            return getIndexWord(word, pos, lookup);
+        } catch (Exception ex) {
+            Logger.getLogger(WordNet.class.getName()).log(Level.SEVERE, "Error to return index word: " + word + ", pos: " + pos, ex);
+            return null;
+        }
+    }
+
+    private IndexWord getIndexWord(String word, String pos, boolean lookup) throws Exception {
+        synchronized (dictionaryLock) {
             if (pos.equals("a")) {
                 if (lookup) {
                     return dictionary.lookupIndexWord(POS.ADJECTIVE, word);
@@ -186,25 +216,24 @@ public class WordNet {
                 //Logger.getLogger(DefaultWordNet.class.getName()).log(Level.WARNING,"Error to return index word (pos tag wrong: " + word + ", pos: " + pos);
                 return null;
             }
-        } catch (Exception ex) {
-            Logger.getLogger(WordNet.class.getName()).log(Level.SEVERE, "Error to return index word: " + word + ", pos: " + pos, ex);
-            return null;
         }
     }
 
-    private Synset returnSynset(String offset, String pos) {
+    private Synset returnSynset(int offset, String pos) {
         try {
-            if (pos.equals("a")) {
-                return dictionary.getSynsetAt(POS.ADJECTIVE, Long.parseLong(offset));
-            } else if (pos.equals("r")) {
-                return dictionary.getSynsetAt(POS.ADVERB, Long.parseLong(offset));
-            } else if (pos.equals("n")) {
-                return dictionary.getSynsetAt(POS.NOUN, Long.parseLong(offset));
-            } else if (pos.equals("v")) {
-                return dictionary.getSynsetAt(POS.VERB, Long.parseLong(offset));
-            } else {
-                //Logger.getLogger(DefaultWordNet.class.getName()).log(Level.WARNING,"Error to return synset (pos tag wrong: " + offset + ", pos: " + pos);
-                return null;
+            synchronized (dictionaryLock) {
+                if (pos.equals("a")) {
+                    return dictionary.getSynsetAt(POS.ADJECTIVE, offset);
+                } else if (pos.equals("r")) {
+                    return dictionary.getSynsetAt(POS.ADVERB, offset);
+                } else if (pos.equals("n")) {
+                    return dictionary.getSynsetAt(POS.NOUN, offset);
+                } else if (pos.equals("v")) {
+                    return dictionary.getSynsetAt(POS.VERB, offset);
+                } else {
+                    //Logger.getLogger(DefaultWordNet.class.getName()).log(Level.WARNING,"Error to return synset (pos tag wrong: " + offset + ", pos: " + pos);
+                    return null;
+                }
             }
         } catch (Exception ex) {
             Logger.getLogger(WordNet.class.getName()).log(Level.SEVERE, "Error to return synset: " + offset + ", pos: " + pos, ex);
@@ -253,20 +282,42 @@ public class WordNet {
     /**
      * Return all synset offsets by word
      *
-     * @return Array of strings, each string represents a synset offset
+     * @return Array of synset offsets
      * @param word Word
      * @param pos Pos-tagger information
      */
-    public String[] getAllSynsetByWord(String word, String pos) {
+    public int[] getAllSynsetByWord(String word, String pos) {
+        SynsetLookupCache cache = lookupCache;
+        if (cache == null) {
+            int[] syns = lookupSynsetsByWord(word, pos);
+            return syns == SynsetLookupCache.MISS ? null : syns;
+        }
+        int[] syns = cache.get(word, pos);
+        if (syns == null) {
+            syns = lookupSynsetsByWord(word, pos);
+            if (syns == null) {
+                //error, the word is looked up again next time
+                return null;
+            }
+            cache.put(word, pos, syns);
+        }
+        return syns == SynsetLookupCache.MISS ? null : syns.clone();
+    }
+
+    /**
+     * Return the synsets of the word, {@link SynsetLookupCache#MISS} if the
+     * word has no synsets or null if the dictionary cannot be read
+     */
+    private int[] lookupSynsetsByWord(String word, String pos) {
         try {
-            IndexWord indexWord = returnIndexWord(word, pos, true);
+            IndexWord indexWord = getIndexWord(word, pos, true);
             if (indexWord == null) {
-                return null;
+                return SynsetLookupCache.MISS;
             }
             long[] synsetOffsets = indexWord.getSynsetOffsets();
-            String[] offsets = new String[synsetOffsets.length];
+            int[] offsets = new int[synsetOffsets.length];
             for (int i = 0; i < offsets.length; i++) {
-                offsets[i] = String.valueOf(synsetOffsets[i]);
+                offsets[i] = (int) synsetOffsets[i];
             }
             return offsets;
         } catch (Exception ex) {
@@ -285,6 +336,7 @@ public class WordNet {
     public boolean init(File configFile) throws Exception {
         try {
             dictionary = Dictionary.getInstance(new FileInputStream(configFile));
+            fingerprint = computeFingerprint(configFile);
         } catch (Exception ex) {
             Logger.getLogger(WordNet.class.getName()).log(Level.SEVERE, "Error to inizialize WordNet(JWNL), error...return false", ex);
             return false;
@@ -299,7 +351,7 @@ public class WordNet {
      * @param pos POS-tag
      * @return String
      */
-    public String getAllWordsInSynset(String offset, String pos) {
+    public String getAllWordsInSynset(int offset, String pos) {
 
         Synset s = this.returnSynset(offset, pos);
         if (s == null) {
@@ -340,7 +392,8 @@ public class WordNet {
      * @param depth Max depth (max distance in WordNet)
      * @return String
      */
-    public String getRelationElement(String offset, String pos, PointerType pointerType, int depth, boolean lemma) {
+    public String getRelationElement(int offset, String pos, PointerType pointerType, int depth, boolean lemma) {
+        Metrics.getInstance().countRelationElement();
         StringBuilder buf = new StringBuilder();
         try {
             Synset s = this.returnSynset(offset, pos);
@@ -348,13 +401,19 @@ public class WordNet {
                 Logger.getLogger(WordNet.class.getName()).log(Level.WARNING, "Error in getRelationElement (synset null): {0}, pos: {1}", new Object[]{offset, pos});
                 return buf.toString();
             }
-            List<PointerTarget> pt = s.getTargets(pointerType);
+            List<PointerTarget> pt;
+            synchronized (dictionaryLock) {
+                pt = s.getTargets(pointerType);
+            }
             if (pt == null) {
                 //no pointer
                 return buf.toString();
             }
             for (int i = 0; i < pt.size(); i++) {
-                Synset synset = pt.get(i).getSynset();
+                Synset synset;
+                synchronized (dictionaryLock) {
+                    synset = pt.get(i).getSynset();
+                }
                 if (synset != null) {
                     String so = String.valueOf(synset.getOffset());
                     //format sysnet
@@ -364,10 +423,10 @@ public class WordNet {
                     buf.append(so);
                     buf.append(" ");
                     if (depth > 0) {
-                        buf.append(getRelationElement(String.valueOf(synset.getOffset()), convertPOS(synset.getPOS()), pointerType, depth - 1, lemma));
+                        buf.append(getRelationElement((int) synset.getOffset(), convertPOS(synset.getPOS()), pointerType, depth - 1, lemma));
                     }
                 }
-                List<Word> words = pt.get(i).getSynset().getWords();
+                List<Word> words = synset.getWords();
                 for (int k = 0; words != null && k < words.size(); k++) {
                     buf.append(words.get(k).getLemma().replaceAll("[_]", " ")).append(" ");
                 }
@@ -392,7 +451,7 @@ public class WordNet {
      * @param start_depth Start depth
      * @return List of {@link nlp.wordNet.types.WnNode}
      */
-    public List<WnNode> getAllRelationNode(String offset, String pos, PointerType pointerType, int depth, int start_depth) {
+    public List<WnNode> getAllRelationNode(int offset, String pos, PointerType pointerType, int depth, int start_depth) {
         List<WnNode> result = new ArrayList<WnNode>();
         try {
             Synset s = this.returnSynset(offset, pos);
@@ -400,7 +459,8 @@ public class WordNet {
                 Logger.getLogger(WordNet.class.getName()).log(Level.WARNING, "Error in getAllRelationNode (synset null): {0}, pos: {1}", new Object[]{offset, pos});
                 return result;
             }
-            List<PointerTarget> pt = s.getTargets(pointerType);
+            //the target offsets are read from the pointers, the target synsets are not loaded
+            List<Pointer> pt = s.getPointers(pointerType);
             if (pt.isEmpty()) {
                 //pointer null skip
                 return result;
@@ -408,7 +468,7 @@ public class WordNet {
             for (int i = 0; i < pt.size(); i++) {
                 WnNode node = new WnNode();
                 node.setDepth(start_depth - depth + 1);
-                node.setOffset(String.valueOf(pt.get(i).getSynset().getOffset()));
+                node.setOffset((int) pt.get(i).getTargetOffset());
                 result.add(node);
                 if (depth > 0) {
                     result.addAll(getAllRelationNode(node.getOffset(), pos, pointerType, depth - 1, start_depth));
@@ -430,16 +490,38 @@ public class WordNet {
      * @param pos POS-tag
      * @param relation Relation type
      * @param depth Max depth
-     * @return The common synsets in relation with o1 and o2
+     * @return The depth and the offset of the common synset in relation with o1 and o2, the offset is -1 if there is no common synset
      */
-    public String[] getCommon(String o1, String o2, String pos, PointerType relation, int depth) {
-        String[] result = new String[2];
+    public int[] getCommon(int o1, int o2, String pos, PointerType relation, int depth) {
+        if (commonCache == null) {
+            return computeCommon(o1, o2, pos, relation, depth);
+        }
+        int[] common = commonCache.get(o1, o2, pos, relation, depth);
+        if (common == null) {
+            common = computeCommon(o1, o2, pos, relation, depth);
+            commonCache.put(o1, o2, pos, relation, depth, common);
+        }
+        return common.clone();
+    }
+
+    private int[] computeCommon(int o1, int o2, String pos, PointerType relation, int depth) {
+        Metrics.getInstance().countTraversal();
+        int[] result = new int[]{MAX_DEPTH + 1, -1};
 
         try {
+            HypernymIndex hypernymIndex = getHypernymIndex(pos, relation, depth);
+            if (hypernymIndex != null) {
+                int[] common = hypernymIndex.getCommon(o1, o2, depth, MAX_DEPTH + 1);
+                if (common[0] != MAX_DEPTH + 1) {
+                    result[0] = common[0];
+                    result[1] = common[1];
+                }
+                return result;
+            }
             List<WnNode> list1 = this.getAllRelationNode(o1, pos, relation, depth, depth);
             List<WnNode> list2 = this.getAllRelationNode(o2, pos, relation, depth, depth);
             int minDepth = MAX_DEPTH + 1;
-            String offset = "-1";
+            int offset = -1;
             int index1 = -1, index2 = -1;
             int ref1 = -1, ref2 = -1;
             for (int i = 0; i < list1.size(); i++) {
@@ -481,12 +563,9 @@ public class WordNet {
                     offset = list1.get(index1).getOffset();
                 }
             }
-            if (minDepth == MAX_DEPTH + 1) {
-                result[0] = String.valueOf(MAX_DEPTH + 1);
-                result[1] = "-1";
-            } else {
-                result[0] = String.valueOf(minDepth);
-                result[1] = String.valueOf(offset);
+            if (minDepth != MAX_DEPTH + 1) {
+                result[0] = minDepth;
+                result[1] = offset;
             }
 
 
@@ -507,8 +586,12 @@ public class WordNet {
      * @throws Exception Exception
      * @return true/false
      */
-    public boolean isHypernym(String start, String end, String pos) throws Exception {
+    public boolean isHypernym(int start, int end, String pos) throws Exception {
         try {
+            HypernymIndex hypernymIndex = getHypernymIndex(pos, PointerType.HYPERNYM, MAX_DEPTH);
+            if (hypernymIndex != null) {
+                return hypernymIndex.isAncestor(start, end);
+            }
             List<WnNode> result = getAllRelationNode(end, pos, PointerType.HYPERNYM, MAX_DEPTH, MAX_DEPTH);
 
             WnNode n = new WnNode();
@@ -528,7 +611,7 @@ public class WordNet {
      * @param pos POS tag
      * @return Synset description
      */
-    public String getAllDescriptionByOffset(String offset, String pos) {
+    public String getAllDescriptionByOffset(int offset, String pos) {
         Synset syn = returnSynset(offset, pos);
         if (syn != null) {
             return syn.toString();
@@ -545,7 +628,7 @@ public class WordNet {
      * @param pos POS tag
      * @return Synset description
      */
-    public String getAllGlossByOffset(String offset, String pos) {
+    public String getAllGlossByOffset(int offset, String pos) {
         Synset syn = returnSynset(offset, pos);
         if (syn != null) {
             return syn.getGloss();
@@ -562,7 +645,7 @@ public class WordNet {
      * @param pos POS tag
      * @return Synset description
      */
-    public String getNormalizeDescriptionByOffset(String offset, String pos) {
+    public String getNormalizeDescriptionByOffset(int offset, String pos) {
         Synset syn = returnSynset(offset, pos);
         if (syn != null) {
             String description = syn.getGloss();
@@ -576,6 +659,312 @@ public class WordNet {
         }
     }
 
+    /**
+     * Return the offsets of all the synsets with the given POS-tag
+     *
+     * @param pos POS-tag
+     * @return Sorted synset offsets
+     * @throws Exception Exception
+     */
+    public int[] getAllOffsets(String pos) throws Exception {
+        POS p;
+        if (pos.equals("a")) {
+            p = POS.ADJECTIVE;
+        } else if (pos.equals("r")) {
+            p = POS.ADVERB;
+        } else if (pos.equals("n")) {
+            p = POS.NOUN;
+        } else if (pos.equals("v")) {
+            p = POS.VERB;
+        } else {
+            return new int[0];
+        }
+        List<Integer> list = new ArrayList<Integer>();
+        synchronized (dictionaryLock) {
+            Iterator<Synset> it = dictionary.getSynsetIterator(p);
+            while (it.hasNext()) {
+                list.add((int) it.next().getOffset());
+            }
+        }
+        int[] offsets = new int[list.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = list.get(i);
+        }
+        Arrays.sort(offsets);
+        return offsets;
+    }
+
+    /**
+     * Fingerprint of the dictionary: the version, the configuration and the
+     * size and the modification time of the files in the dictionary path
+     */
+    private long computeFingerprint(File configFile) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(String.valueOf(dictionary.getVersion()).getBytes("UTF-8"));
+        byte[] config = Files.readAllBytes(configFile.toPath());
+        crc.update(config);
+        Matcher m = Pattern.compile("name=\"dictionary_path\"\\s+value=\"([^\"]*)\"").matcher(new String(config, "UTF-8"));
+        if (m.find()) {
+            File[] files = new File(m.group(1)).listFiles();
+            if (files != null) {
+                Arrays.sort(files);
+                for (File file : files) {
+                    crc.update((file.getName() + "\t" + file.length() + "\t" + file.lastModified()).getBytes("UTF-8"));
+                }
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Load the hypernym index of nouns and verbs from indexFile. If the file
+     * does not exist, or it is not valid for this dictionary, the index is
+     * built from WordNet and stored in indexFile.
+     *
+     * @param indexFile Index file
+     * @throws Exception Exception
+     */
+    public void initHypernymIndex(File indexFile) throws Exception {
+        if (indexFile.exists()) {
+            try {
+                readHypernymIndex(indexFile);
+                Logger.getLogger(WordNet.class.getName()).log(Level.INFO, "Hypernym index loaded, nouns={0}, verbs={1}", new Object[]{nounHypernymIndex.size(), verbHypernymIndex.size()});
+                return;
+            } catch (Exception ex) {
+                Logger.getLogger(WordNet.class.getName()).log(Level.WARNING, "Hypernym index not valid, rebuild: " + indexFile, ex);
+            }
+        }
+        buildHypernymIndex();
+        try {
+            writeHypernymIndex(indexFile);
+        } catch (IOException ex) {
+            Logger.getLogger(WordNet.class.getName()).log(Level.WARNING, "Error to save the hypernym index: " + indexFile, ex);
+        }
+    }
+
+    private void readHypernymIndex(File indexFile) throws IOException {
+        CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(new FileInputStream(indexFile)), new CRC32());
+        DataInputStream in = new DataInputStream(checked);
+        try {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                throw new IOException("Unknown hypernym index format");
+            }
+            if (in.readLong() != fingerprint) {
+                throw new IOException("Hypernym index built from a different dictionary");
+            }
+            HypernymIndex nounIndex = HypernymIndex.read(in);
+            HypernymIndex verbIndex = HypernymIndex.read(in);
+            long checksum = checked.getChecksum().getValue();
+            if (in.readLong() != checksum || in.read() != -1) {
+                throw new IOException("Hypernym index corrupted");
+            }
+            if (nounIndex.getMaxDepth() != MAX_DEPTH || verbIndex.getMaxDepth() != MAX_DEPTH) {
+                throw new IOException("Hypernym index built with a different max depth");
+            }
+            nounHypernymIndex = nounIndex;
+            verbHypernymIndex = verbIndex;
+        } finally {
+            in.close();
+        }
+    }
+
+    private void writeHypernymIndex(File indexFile) throws IOException {
+        File tmp = AtomicFile.temporary(indexFile);
+        CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)), new CRC32());
+        DataOutputStream out = new DataOutputStream(checked);
+        try {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(fingerprint);
+            nounHypernymIndex.write(out);
+            verbHypernymIndex.write(out);
+            out.writeLong(checked.getChecksum().getValue());
+            out.close();
+            AtomicFile.commit(indexFile);
+        } catch (IOException ex) {
+            out.close();
+            AtomicFile.discard(indexFile);
+            throw ex;
+        }
+    }
+
+    /**
+     * Build the hypernym index of nouns and verbs
+     *
+     * @throws Exception Exception
+     */
+    public void buildHypernymIndex() throws Exception {
+        Logger.getLogger(WordNet.class.getName()).log(Level.INFO, "Building hypernym index...");
+        nounHypernymIndex = buildHypernymIndex(POS.NOUN);
+        verbHypernymIndex = buildHypernymIndex(POS.VERB);
+        Logger.getLogger(WordNet.class.getName()).log(Level.INFO, "Hypernym index built, nouns={0}, verbs={1}", new Object[]{nounHypernymIndex.size(), verbHypernymIndex.size()});
+    }
+
+    private HypernymIndex buildHypernymIndex(POS pos) throws Exception {
+        List<Synset> list = new ArrayList<Synset>();
+        Iterator<Synset> it = dictionary.getSynsetIterator(pos);
+        while (it.hasNext()) {
+            list.add(it.next());
+        }
+        int[][] synsets = new int[list.size()][];
+        for (int i = 0; i < synsets.length; i++) {
+            Synset s = list.get(i);
+            List<Pointer> pointers = s.getPointers(PointerType.HYPERNYM);
+            int[] synset = new int[pointers.size() + 1];
+            synset[0] = (int) s.getOffset();
+            for (int j = 0; j < pointers.size(); j++) {
+                synset[j + 1] = (int) pointers.get(j).getTargetOffset();
+            }
+            synsets[i] = synset;
+        }
+        Arrays.sort(synsets, new Comparator<int[]>() {
+
+            @Override
+            public int compare(int[] o1, int[] o2) {
+                return o1[0] < o2[0] ? -1 : (o1[0] == o2[0] ? 0 : 1);
+            }
+        });
+        int[] offsets = new int[synsets.length];
+        int[][] parents = new int[synsets.length][];
+        for (int i = 0; i < synsets.length; i++) {
+            offsets[i] = synsets[i][0];
+            parents[i] = Arrays.copyOfRange(synsets[i], 1, synsets[i].length);
+        }
+        return HypernymIndex.build(offsets, parents, MAX_DEPTH);
+    }
+
+    /**
+     * Set the number of synset pairs stored in the distance and common
+     * subsumer caches, 0 disables the caches. The distance oracles keep the
+     * labels of cacheSize/10 synsets.
+     *
+     * @param cacheSize Cache size
+     */
+    public void setCacheSize(int cacheSize) {
+        labelCacheSize = cacheSize / 10;
+        distanceOracles.clear();
+        if (cacheSize > 0) {
+            depthCache = new SynsetPairCache<Integer>(cacheSize);
+            commonCache = new SynsetPairCache<int[]>(cacheSize);
+        } else {
+            depthCache = null;
+            commonCache = null;
+        }
+    }
+
+    /**
+     * Set the number of (word, pos-tag) pairs whose synsets are cached, 0
+     * disables the cache
+     *
+     * @param lookupCacheSize Cache size
+     */
+    public void setLookupCacheSize(int lookupCacheSize) {
+        if (lookupCacheSize > 0) {
+            lookupCache = new SynsetLookupCache(lookupCacheSize);
+        } else {
+            lookupCache = null;
+        }
+    }
+
+    /**
+     * @return Fingerprint of the dictionary, compiled files built from a
+     * different dictionary must not be used
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return The synset lookup cache, null if the cache is disabled
+     */
+    public SynsetLookupCache getLookupCache() {
+        return lookupCache;
+    }
+
+    /**
+     * @return The distance cache, null if the cache is disabled
+     */
+    public SynsetPairCache<Integer> getDepthCache() {
+        return depthCache;
+    }
+
+    /**
+     * @return The common subsumer cache, null if the cache is disabled
+     */
+    public SynsetPairCache<int[]> getCommonCache() {
+        return commonCache;
+    }
+
+    /**
+     * Return a hypernym index which covers the synsets. The global index is
+     * returned if it is loaded, otherwise the ancestors of the synsets are
+     * expanded once and indexed.
+     *
+     * @param offsets Synset offsets
+     * @param pos POS-tag
+     * @return The index, the max depth is MAX_DEPTH
+     */
+    public HypernymIndex getHypernymIndex(int[] offsets, String pos) {
+        HypernymIndex index = getHypernymIndex(pos, PointerType.HYPERNYM, MAX_DEPTH);
+        if (index != null) {
+            return index;
+        }
+        int[] sorted = offsets.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[size - 1] != sorted[i]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        sorted = Arrays.copyOf(sorted, size);
+        List<List<WnNode>> ancestors = new ArrayList<List<WnNode>>(size);
+        for (int i = 0; i < size; i++) {
+            Metrics.getInstance().countTraversal();
+            ancestors.add(getAllRelationNode(sorted[i], pos, PointerType.HYPERNYM, MAX_DEPTH, MAX_DEPTH));
+        }
+        return HypernymIndex.build(sorted, ancestors, MAX_DEPTH);
+    }
+
+    /**
+     * Return the distance oracle used when the hypernym index does not cover
+     * the relation, the pos-tag or the depth
+     */
+    private DistanceOracle getDistanceOracle(final String pos, final PointerType relation) {
+        String key = pos + relation.getKey();
+        DistanceOracle oracle = distanceOracles.get(key);
+        if (oracle == null) {
+            oracle = new DistanceOracle(new DistanceOracle.AncestorSource() {
+
+                @Override
+                public List<WnNode> getAncestors(int offset, int maxDepth) {
+                    return getAllRelationNode(offset, pos, relation, maxDepth, maxDepth);
+                }
+            }, labelCacheSize);
+            DistanceOracle previous = distanceOracles.putIfAbsent(key, oracle);
+            if (previous != null) {
+                oracle = previous;
+            }
+        }
+        return oracle;
+    }
+
+    private HypernymIndex getHypernymIndex(String pos, PointerType relation, int maxDepth) {
+        if (relation != PointerType.HYPERNYM) {
+            return null;
+        }
+        HypernymIndex index = null;
+        if (pos.equals("n")) {
+            index = nounHypernymIndex;
+        } else if (pos.equals("v")) {
+            index = verbHypernymIndex;
+        }
+        if (index != null && maxDepth <= index.getMaxDepth()) {
+            return index;
+        }
+        return null;
+    }
+
     public void destroy() {
         dictionary.close();
     }